@@ -2,6 +2,7 @@ package com.abalone;
 
 import com.abalone.controller.GameController;
 import com.abalone.model.GameManager;
+import com.abalone.model.Warmup;
 import com.abalone.view.GameView;
 import javafx.application.Application;
 import javafx.stage.Stage;
@@ -22,6 +23,8 @@ public class AbaloneGame extends Application {
      */
     @Override
     public void start(Stage primaryStage) {
+        // The human moves first, so the warm-up normally finishes before the first AI move.
+        Warmup.configured();
         GameManager gameManager = new GameManager();
         GameView gameView = new GameView(primaryStage);
         GameController gameController = new GameController(gameManager, gameView);
@@ -1,30 +1,46 @@
 package com.abalone.controller;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.abalone.model.GameListener;
 import com.abalone.model.GameManager;
+import com.abalone.model.MoveGenerator;
 import com.abalone.model.utils.Move;
 import com.abalone.model.utils.Players.Player;
+import com.abalone.model.utils.Trace;
+import com.abalone.model.utils.TraceEvent;
 import com.abalone.view.GameView;
 
-import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
 
 /**
  * GameController class manages user moves and AI moves during the game.
+ * It reacts to the events published by GameManager instead of polling it, so nothing runs
+ * between moves. AI moves are computed on a background thread and applied on the FX thread.
  */
-public class GameController {
+public class GameController implements GameListener {
     private GameManager gameManager;
     private final GameView gameView;
-    private boolean isHumanTurn;
     private int selectedPosition;
-    private AnimationTimer gameLoop;
+    private int selectedGroupEnd; // other end of the selected line for a broadside move, -1 if none
+    private final ExecutorService aiExecutor;
+    private static final int HINT_LINES = 3;
+    private static final int HINT_MAX_DEPTH = 4;
+    private static final long HINT_TIME_MILLIS = 3000;
 
 
     public GameController(GameManager gameManager, GameView gameView) {
         this.gameManager = gameManager;
         this.gameView = gameView;
-        this.isHumanTurn = true;
         selectedPosition = -1; // No piece selected at start so -1
-        initGameLoop();
+        selectedGroupEnd = -1;
+        aiExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "abalone-ai");
+            thread.setDaemon(true);
+            return thread;
+        });
+        gameManager.addListener(this);
     }
 
     /**
@@ -40,42 +56,55 @@ public class GameController {
             gameView.showGameOver(gameManager.getWinner() + " wins!");
             return;
         }
-        if (!isHumanTurn) {
+        if (!gameManager.isHumanTurn()) {
             return;
         }
-        System.out.println("Clicked position: " + clickedPosition);
+        Trace.log(TraceEvent.CLICKED_POSITION, clickedPosition);
         if (selectedPosition == -1) {
             // Select a human piece.
-            Player pieceOwner = gameManager.getBoard().getPlayerAt(clickedPosition);
-            if (pieceOwner != null && pieceOwner.getName().equals(gameManager.getHumanPlayerName())) {
+            if (gameManager.getPosition().isHuman(clickedPosition)) {
                 selectedPosition = clickedPosition;
-                System.out.println("Selected piece at: " + selectedPosition);
+                Trace.log(TraceEvent.SELECTED_PIECE, selectedPosition);
                 gameView.highlightPiece(clickedPosition);
             } else {
-                System.out.println("Selection failed! Not a human piece.");
+                Trace.log(TraceEvent.SELECTION_FAILED);
             }
         } else {
             // try to move the previously selected piece to the new clicked piece.
-            Move move = new Move(selectedPosition, clickedPosition);
-            if (gameManager.getBoard().isValidMove(move)) {
-                System.out.println("Valid move from " + selectedPosition + " to " + clickedPosition);
-                gameManager.getBoard().applyMove(move);
-                gameView.renderBoard(gameManager.getBoard());
-                switchTurn();
-            } else {
-                System.out.println("Invalid move from " + selectedPosition + " to " + clickedPosition);
-            }
+            Move move = new Move(selectedPosition, clickedPosition, selectedGroupEnd);
+            int from = selectedPosition;
             selectedPosition = -1;
+            selectedGroupEnd = -1;
             gameView.clearHighlight();
+            if (gameManager.getPosition().isValidMove(move)) {
+                Trace.log(TraceEvent.VALID_MOVE, from, clickedPosition);
+                gameManager.applyMove(move);
+            } else {
+                Trace.log(TraceEvent.INVALID_MOVE, from, clickedPosition);
+            }
         }
     }
 
     /**
-     * Switches the turn between the human and the AI.
+     * Called when there is a secondary click on a board cell.
+     * With a piece selected, marks the clicked human piece as the other end of the group, so that
+     * the next click moves the whole line broadside.
+     * O(1)
+     *
+     * @param clickedPosition the index of the clicked cell
      */
-    private void switchTurn() {
-        isHumanTurn = !isHumanTurn;
-        gameView.updateTurnLabel(isHumanTurn ? "Human" : "AI");
+    public void selectGroupEnd(int clickedPosition) {
+        if (selectedPosition == -1 || gameManager.isGameOver() || !gameManager.isHumanTurn()) {
+            return;
+        }
+        if (gameManager.getPosition().isHuman(clickedPosition)
+                && MoveGenerator.lineLength(selectedPosition, clickedPosition) > 0) {
+            selectedGroupEnd = clickedPosition;
+            Trace.log(TraceEvent.SELECTED_GROUP_END, clickedPosition);
+            gameView.highlightGroupEnd(clickedPosition);
+        } else {
+            Trace.log(TraceEvent.SELECTION_FAILED);
+        }
     }
 
     /**
@@ -83,69 +112,122 @@ public class GameController {
      * @return true if human turn, false otherwise
      */
     public boolean isHumanTurn() {
-        return isHumanTurn;
+        return gameManager.isHumanTurn();
     }
 
     /**
      * Starts the game by rendering the board and updating the turn label.
      */
     public void startGame() {
-        gameView.renderBoard(gameManager.getBoard());
+        gameView.renderBoard(gameManager.getPosition());
         gameView.updateTurnLabel("Human");
-        gameLoop.start();
     }
     
     /**
      * Resets the game state and starts a new game.
      */
     public void startNewGame() {
+        gameManager.removeListener(this);
         gameManager = new GameManager();
-        gameView.renderBoard(gameManager.getBoard());
+        gameManager.addListener(this);
+        selectedPosition = -1;
+        selectedGroupEnd = -1;
+        gameView.clearHighlight();
+        gameView.renderBoard(gameManager.getPosition());
         gameView.updateTurnLabel("Human");
-        gameManager.updatePlayersScores();
         gameView.updateScores(gameManager.getHumanScore(), gameManager.getAIScore());
-        isHumanTurn = true;
-        gameLoop.start();
     }
 
     /**
-     * Initializes the game loop for the animation timer.
+     * Takes back the last human move together with the AI reply, if any.
+     * Only allowed on the human's turn, while the AI is not thinking.
+     */
+    public void undoMove() {
+        if (!gameManager.isHumanTurn() || !gameManager.canUndo()) {
+            return;
+        }
+        selectedPosition = -1;
+        selectedGroupEnd = -1;
+        gameView.clearHighlight();
+        gameManager.undo();
+        if (!gameManager.isHumanTurn() && gameManager.canUndo()) {
+            gameManager.undo();
+        }
+    }
+
+    /**
+     * Analyses the position for the human on the AI thread and shows the best move found so far,
+     * updating the hint each time the analysis goes one ply deeper.
+     */
+    public void requestHint() {
+        if (!gameManager.isHumanTurn() || gameManager.isGameOver()) {
+            return;
+        }
+        GameManager manager = gameManager;
+        aiExecutor.execute(() -> manager.analyze(HINT_LINES, HINT_MAX_DEPTH, HINT_TIME_MILLIS, result -> {
+            Move best = result.getBestMove();
+            Platform.runLater(() -> {
+                if (manager == gameManager && manager.isHumanTurn() && best != null) {
+                    gameView.showHint(best.getFrom(), best.getTo(), best.getGroupEnd());
+                }
+            });
+        }));
+    }
+
+    @Override
+    public void onPositionChanged(boolean humanTurn) {
+        gameView.clearHint();
+        gameView.renderBoard(gameManager.getPosition());
+        gameView.updateScores(gameManager.getHumanScore(), gameManager.getAIScore());
+        gameView.updateTurnLabel(humanTurn ? "Human" : "AI");
+    }
+
+    @Override
+    public void onMoveApplied(Move move, Player mover) {
+        gameView.clearHint();
+        gameView.renderBoard(gameManager.getPosition());
+    }
+
+    @Override
+    public void onMarbleEjected(Player owner, int remaining) {
+        gameView.updateScores(gameManager.getHumanScore(), gameManager.getAIScore());
+    }
+
+    @Override
+    public void onTurnChanged(boolean humanTurn) {
+        gameView.updateTurnLabel(humanTurn ? "Human" : "AI");
+        if (!humanTurn) {
+            requestAIMove();
+        }
+    }
+
+    @Override
+    public void onGameOver(String winner) {
+        // Show the alert after the current event has been handled.
+        Platform.runLater(() -> gameView.showGameOver(winner + " wins!"));
+    }
+
+    /**
+     * Computes the AI move on the AI thread and applies it on the FX thread.
+     * The result is discarded if a new game was started in the meantime.
      * O(n^3)
-     * 
-     * The game loop checks if the game is over and updates the UI accordingly.
      */
-    private void initGameLoop() {
-        gameLoop = new AnimationTimer() { // O()
-            @Override
-            public void handle(long now) {
-                // Check if game is over.
-                if (gameManager.isGameOver()) {
-                    gameLoop.stop();
-                    // Ensure UI updates happens.
-                    Platform.runLater(() -> {
-                        gameView.showGameOver(gameManager.getWinner() + " wins!");
-                    });
+    private void requestAIMove() {
+        GameManager manager = gameManager;
+        aiExecutor.execute(() -> {
+            Move aiMove = manager.getAIMove(); // O(n^3)
+            Platform.runLater(() -> {
+                if (manager != gameManager) {
                     return;
                 }
-
-                // If it's the AI's turn, apply AI move.
-                if (!isHumanTurn) {
-                    Move aiMove = gameManager.getAIMove(); // O(n^3)
-                    System.out.println("AI moves: " + aiMove);
-                    gameManager.getBoard().applyMove(aiMove);
-                    gameManager.updatePlayersScores();
-
-                    // Ensure UI updates happens.
-                    Platform.runLater(() -> {
-                        gameView.renderBoard(gameManager.getBoard());
-                        gameManager.updatePlayersScores();
-                        gameView.updateScores(gameManager.getHumanScore(), gameManager.getAIScore());
-                        gameView.updateTurnLabel("Human");
-                    });
-                    isHumanTurn = true;
+                if (aiMove == null) {
+                    // The AI has no legal move, so the turn passes back to the human.
+                    manager.passTurn();
+                    return;
                 }
-                // Otherwise, wait for human move through clickedBoardCell function.
-            }
-        };
+                Trace.log(TraceEvent.AI_MOVE, aiMove.getFrom(), aiMove.getTo());
+                manager.applyMove(aiMove);
+            });
+        });
     }
 }
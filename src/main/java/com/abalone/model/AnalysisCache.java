@@ -0,0 +1,402 @@
+package com.abalone.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.abalone.model.utils.Trace;
+import com.abalone.model.utils.TraceEvent;
+
+/**
+ * Disk-backed cache of search results keyed by canonical position key, kept across restarts.
+ *
+ * Results are appended to analysis.log, which is the durable record, and indexed in
+ * analysis.idx, a memory-mapped open-addressing table that holds each entry inline so a lookup
+ * never touches the log. The index remembers how much of the log it covers; when it is behind
+ * (or missing) it is brought up to date on a background thread after opening, and lookups simply
+ * miss until then. When the log holds more than twice as many records as live entries it is
+ * compacted by rewriting it from the index. Records are only ever written at multiples of the
+ * record size, and a partial record left at the end of the log by a crash is cut off when the
+ * cache is opened.
+ *
+ * Log record (16 bytes): long key, int score, byte depth, byte from, byte to, byte groupEnd + 1
+ * (0 for in-line moves).
+ * Index header (32 bytes): int magic, int version, int capacity, int count, long coveredLogLength.
+ * Index slot (16 bytes): the log record layout; depth 0 marks an empty slot.
+ */
+public class AnalysisCache {
+    /** System property naming the cache directory used by AIPlayer. */
+    public static final String CACHE_PROPERTY = "abalone.cache";
+
+    private static final int MAGIC = 0x43424241; // "ABBC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int ENTRY_SIZE = 16;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    private static final Map<Path, AnalysisCache> OPEN_CACHES = new ConcurrentHashMap<>();
+
+    private final Path logPath;
+    private final Path indexPath;
+    private FileChannel log;
+    private MappedByteBuffer index;
+    private int capacity;
+    private final ByteBuffer record = ByteBuffer.allocate(ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private volatile boolean warm;
+
+    /**
+     * Result of a cached search, in the canonical frame of the position.
+     */
+    public static class Entry {
+        private final int score;
+        private final int depth;
+        private final int from;
+        private final int to;
+        private final int groupEnd;
+
+        Entry(int score, int depth, int from, int to, int groupEnd) {
+            this.score = score;
+            this.depth = depth;
+            this.from = from;
+            this.to = to;
+            this.groupEnd = groupEnd;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public int getFrom() {
+            return from;
+        }
+
+        public int getTo() {
+            return to;
+        }
+
+        /**
+         * @return the other end of a broadside group, or -1 for an in-line move
+         */
+        public int getGroupEnd() {
+            return groupEnd;
+        }
+    }
+
+    private AnalysisCache(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        logPath = directory.resolve("analysis.log");
+        indexPath = directory.resolve("analysis.idx");
+        log = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long length = recordsLength();
+        if (length < log.size()) {
+            log.truncate(length);
+        }
+        openIndex();
+        // The index cannot cover more of the log than is left of it.
+        index.putLong(24, Math.min(index.getLong(24), length) / ENTRY_SIZE * ENTRY_SIZE);
+        Thread warmer = new Thread(this::warm, "abalone-cache-warmup");
+        warmer.setDaemon(true);
+        warmer.start();
+    }
+
+    /**
+     * Returns the cache stored in the given directory, opening it on first use.
+     *
+     * @param directory the cache directory
+     * @return the shared cache instance
+     * @throws IOException if the cache files cannot be opened
+     */
+    public static AnalysisCache open(Path directory) throws IOException {
+        Path key = directory.toAbsolutePath().normalize();
+        synchronized (OPEN_CACHES) {
+            AnalysisCache cache = OPEN_CACHES.get(key);
+            if (cache == null) {
+                cache = new AnalysisCache(key);
+                OPEN_CACHES.put(key, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Returns the cache named by the abalone.cache system property.
+     *
+     * @return the configured cache, or null if none is configured or it cannot be opened
+     */
+    public static AnalysisCache configured() {
+        String directory = System.getProperty(CACHE_PROPERTY);
+        if (directory == null) {
+            return null;
+        }
+        try {
+            return open(Paths.get(directory));
+        } catch (IOException e) {
+            Trace.log(TraceEvent.CACHE_OPEN_FAILED);
+            return null;
+        }
+    }
+
+    /**
+     * @return true once the index covers the whole log
+     */
+    public boolean isWarm() {
+        return warm;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param key the canonical position key
+     * @return the cached result, or null if the position is not cached
+     */
+    public synchronized Entry lookup(long key) {
+        int slot = findSlot(key);
+        int offset = HEADER_SIZE + slot * ENTRY_SIZE;
+        if (index.get(offset + 12) == 0) {
+            return null;
+        }
+        return new Entry(index.getInt(offset + 8), index.get(offset + 12), index.get(offset + 13), index.get(offset + 14),
+                index.get(offset + 15) - 1);
+    }
+
+    /**
+     * Stores a search result unless a result at least as deep is already cached.
+     *
+     * @param key the canonical position key
+     * @param score the search score
+     * @param depth the search depth, at least 1
+     * @param from the best move's from cell, in the canonical frame
+     * @param to the best move's to cell, in the canonical frame
+     * @param groupEnd the best move's broadside group end in the canonical frame, or -1
+     */
+    public synchronized void store(long key, int score, int depth, int from, int to, int groupEnd) {
+        int slot = findSlot(key);
+        int offset = HEADER_SIZE + slot * ENTRY_SIZE;
+        if (index.get(offset + 12) >= depth) {
+            return;
+        }
+        try {
+            record.clear();
+            record.putLong(key).putInt(score).put((byte) depth).put((byte) from).put((byte) to).put((byte) (groupEnd + 1));
+            record.flip();
+            // A failed write may have left a partial record, which the next one overwrites.
+            long position = recordsLength();
+            while (record.hasRemaining()) {
+                position += log.write(record, position);
+            }
+            if (warm) {
+                // Before warm-up finishes, the warm-up replays this record itself.
+                index.putLong(24, position);
+            }
+        } catch (IOException e) {
+            // The cache is an optimisation; a failed write only loses this entry.
+            Trace.log(TraceEvent.CACHE_WRITE_FAILED, depth);
+            return;
+        }
+        insert(key, score, depth, from, to, groupEnd);
+        if (warm) {
+            maybeCompact();
+        }
+    }
+
+    /**
+     * Rewrites the log so that it holds one record per live entry.
+     *
+     * @throws IOException if the new log cannot be written
+     */
+    public synchronized void compact() throws IOException {
+        Path temp = Paths.get(logPath + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            for (int slot = 0; slot < capacity; slot++) {
+                int offset = HEADER_SIZE + slot * ENTRY_SIZE;
+                if (index.get(offset + 12) != 0) {
+                    entry.clear();
+                    for (int i = 0; i < ENTRY_SIZE; i++) {
+                        entry.put(index.get(offset + i));
+                    }
+                    entry.flip();
+                    while (entry.hasRemaining()) {
+                        out.write(entry);
+                    }
+                }
+            }
+            out.force(true);
+        }
+        log.close();
+        Files.move(temp, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index.putLong(24, log.size());
+    }
+
+    /**
+     * Flushes the log and the index to disk.
+     */
+    public synchronized void flush() throws IOException {
+        log.force(false);
+        index.force();
+    }
+
+    private void maybeCompact() {
+        try {
+            if (log.size() / ENTRY_SIZE > 2L * Math.max(INITIAL_CAPACITY / 2, index.getInt(12))) {
+                compact();
+            }
+        } catch (IOException e) {
+            // Keep using the current log.
+            Trace.log(TraceEvent.CACHE_COMPACT_FAILED, index.getInt(12));
+        }
+    }
+
+    /**
+     * @return the length of the whole records in the log
+     */
+    private long recordsLength() throws IOException {
+        long length = log.size();
+        return length - length % ENTRY_SIZE;
+    }
+
+    /**
+     * Replays the part of the log the index does not cover yet, then touches the index pages.
+     */
+    private void warm() {
+        try {
+            long position = index.getLong(24);
+            ByteBuffer chunk = ByteBuffer.allocate(ENTRY_SIZE * 4096).order(ByteOrder.LITTLE_ENDIAN);
+            while (true) {
+                synchronized (this) {
+                    chunk.clear();
+                    int read = log.read(chunk, position);
+                    if (read < ENTRY_SIZE) {
+                        index.putLong(24, position);
+                        warm = true;
+                        break;
+                    }
+                    chunk.flip();
+                    while (chunk.remaining() >= ENTRY_SIZE) {
+                        long key = chunk.getLong();
+                        int score = chunk.getInt();
+                        int depth = chunk.get();
+                        int from = chunk.get();
+                        int to = chunk.get();
+                        int groupEnd = chunk.get() - 1;
+                        int offset = HEADER_SIZE + findSlot(key) * ENTRY_SIZE;
+                        if (depth > index.get(offset + 12)) {
+                            insert(key, score, depth, from, to, groupEnd);
+                        }
+                        position += ENTRY_SIZE;
+                    }
+                }
+            }
+            index.load();
+        } catch (IOException e) {
+            Trace.log(TraceEvent.CACHE_WARM_FAILED);
+        }
+    }
+
+    private void openIndex() throws IOException {
+        boolean exists = Files.exists(indexPath);
+        try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (exists && channel.size() >= HEADER_SIZE) {
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+                header.order(ByteOrder.LITTLE_ENDIAN);
+                int storedCapacity = header.getInt(8);
+                if (header.getInt(0) == MAGIC && header.getInt(4) == VERSION
+                        && channel.size() == HEADER_SIZE + (long) storedCapacity * ENTRY_SIZE) {
+                    capacity = storedCapacity;
+                    index = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+                    index.order(ByteOrder.LITTLE_ENDIAN);
+                    return;
+                }
+            }
+        }
+        // Missing or unreadable index: start empty and let the warm-up replay the whole log.
+        index = createIndex(indexPath, INITIAL_CAPACITY);
+        capacity = INITIAL_CAPACITY;
+    }
+
+    private static MappedByteBuffer createIndex(Path path, int capacity) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * ENTRY_SIZE);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, capacity);
+            buffer.putInt(12, 0);
+            buffer.putLong(24, 0L);
+            return buffer;
+        }
+    }
+
+    /**
+     * @return the slot holding the key, or the empty slot where it would be inserted
+     */
+    private int findSlot(long key) {
+        int mask = capacity - 1;
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        while (true) {
+            int offset = HEADER_SIZE + slot * ENTRY_SIZE;
+            if (index.get(offset + 12) == 0 || index.getLong(offset) == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void insert(long key, int score, int depth, int from, int to, int groupEnd) {
+        int offset = HEADER_SIZE + findSlot(key) * ENTRY_SIZE;
+        if (index.get(offset + 12) == 0) {
+            index.putInt(12, index.getInt(12) + 1);
+        }
+        index.putLong(offset, key);
+        index.putInt(offset + 8, score);
+        index.put(offset + 12, (byte) depth);
+        index.put(offset + 13, (byte) from);
+        index.put(offset + 14, (byte) to);
+        index.put(offset + 15, (byte) (groupEnd + 1));
+        if (index.getInt(12) > capacity / 2) {
+            grow();
+        }
+    }
+
+    /**
+     * Doubles the index, keeping it at most half full.
+     */
+    private void grow() {
+        try {
+            MappedByteBuffer old = index;
+            int oldCapacity = capacity;
+            Path temp = Paths.get(indexPath + ".tmp");
+            index = createIndex(temp, oldCapacity * 2);
+            capacity = oldCapacity * 2;
+            for (int slot = 0; slot < oldCapacity; slot++) {
+                int offset = HEADER_SIZE + slot * ENTRY_SIZE;
+                if (old.get(offset + 12) != 0) {
+                    insert(old.getLong(offset), old.getInt(offset + 8), old.get(offset + 12), old.get(offset + 13), old.get(offset + 14),
+                            old.get(offset + 15) - 1);
+                }
+            }
+            index.putLong(24, old.getLong(24));
+            index.force();
+            Files.move(temp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot grow analysis cache index", e);
+        }
+    }
+}
@@ -8,6 +8,7 @@ import java.util.Map;
 import java.util.Set;
 
 import com.abalone.model.utils.Move;
+import com.abalone.model.utils.MoveDelta;
 import com.abalone.model.utils.Players.Player;
 
 import javafx.scene.paint.Color;
@@ -17,6 +18,9 @@ import javafx.scene.paint.Color;
  * move applications, and calculations of neighbors.
  */
 public class Board {
+    // The coordinate maps, graph and neighbor table are the same for every board, so all boards share these.
+    private static final Board GEOMETRY = new Board();
+
     private final Map<Integer, List<Integer>> graph; // Graph of neighbors for each cell
     private final Map<Integer, Player> positions; // Stores player pieces on the board
     private final Player aiPlayer;
@@ -24,27 +28,75 @@ public class Board {
     private final Map<Integer, int[]> indexToCoord; 
     private final Map<String, Integer> coordToIndex;
     private final List<int[]> directions ;
+    private final int[][] neighbors; // neighbors[cell][direction index], -1 if off board
+    private long aiMask;       // bit i set when cell i holds an AI piece
+    private long humanMask;    // bit i set when cell i holds a human piece
+    private int aiCount;
+    private int humanCount;
+    private int aiEjected;     // AI pieces pushed off the board
+    private int humanEjected;  // human pieces pushed off the board
+    // Hashes of the 12 symmetric images, seen with the AI to move and with the human to move.
+    private long[] aiToMoveHashes = new long[BoardSymmetry.COUNT];
+    private long[] humanToMoveHashes = new long[BoardSymmetry.COUNT];
+    private CellListener cellListener; // not copied by clone()
+    private LegalMoveSet legalMoves;   // null unless incremental moves are enabled
 
 
     /**
-     * Constructs a new Board with the specified AI and human players.
-     * Creates axial direction list for all possible directions, Initializes axial coordinate mappings, builds the neighbor graph, and places initial pieces.
+     * Constructs a new Board with the specified AI and human players and places the initial pieces.
+     * The direction list, coordinate mappings and neighbor graph are shared with every other board.
      *
      * @param aiPlayer the AI player
      * @param humanPlayer the human player
      */
     public Board(Player aiPlayer, Player humanPlayer) {
+        this(GEOMETRY, aiPlayer, humanPlayer);
+        placeStartingPieces();
+    }
+
+    /**
+     * Constructs a Board from packed occupancy masks, where bit i is set when cell i
+     * holds a piece of that player. Used to restore positions from datasets and records.
+     *
+     * @param aiPlayer the AI player
+     * @param humanPlayer the human player
+     * @param aiMask occupancy mask of the AI pieces
+     * @param humanMask occupancy mask of the human pieces
+     */
+    public Board(Player aiPlayer, Player humanPlayer, long aiMask, long humanMask) {
+        this(GEOMETRY, aiPlayer, humanPlayer);
+        setPosition(aiMask, humanMask);
+    }
+
+    /**
+     * Builds the geometry tables shared by all boards: axial direction list, coordinate mappings,
+     * neighbor graph and neighbor table. The board itself stays empty and has no players.
+     */
+    private Board() {
         graph = new HashMap<>();
         positions = new HashMap<>();
         indexToCoord = new HashMap<>();
         coordToIndex = new HashMap<>();
-        this.aiPlayer = aiPlayer;
-        this.humanPlayer = humanPlayer;
+        this.aiPlayer = null;
+        this.humanPlayer = null;
         directions = List.of(new int[]{1, 0}, new int[]{-1, 0}, new int[]{0, 1}, new int[]{0, -1}, new int[]{1, -1}, new int[]{-1, 1}); //Create a list of directions
         initializeAxialHashMaps();  // Build axial coordinate mappings for the board
         initializeGraph();         // Build neighbor graph
-        placeStartingPieces();
+        neighbors = buildNeighborTable();
+    }
 
+    /**
+     * Creates an empty board sharing the geometry tables of another.
+     */
+    private Board(Board geometry, Player aiPlayer, Player humanPlayer) {
+        this.graph = geometry.graph;
+        this.indexToCoord = geometry.indexToCoord;
+        this.coordToIndex = geometry.coordToIndex;
+        this.directions = geometry.directions;
+        this.neighbors = geometry.neighbors;
+        this.positions = new HashMap<>();
+        this.aiPlayer = aiPlayer;
+        this.humanPlayer = humanPlayer;
     }
 
     private Board(Board other) {
@@ -52,10 +104,20 @@ public class Board {
         this.indexToCoord = other.indexToCoord;
         this.coordToIndex = other.coordToIndex; 
         this.directions = other.directions; 
+        this.neighbors = other.neighbors;
         this.aiPlayer = other.aiPlayer; 
         this.humanPlayer = other.humanPlayer;
         // copy the positions map so that modifications don't affect the original board.
         this.positions = new HashMap<>(other.positions);
+        this.aiMask = other.aiMask;
+        this.humanMask = other.humanMask;
+        this.aiCount = other.aiCount;
+        this.humanCount = other.humanCount;
+        this.aiEjected = other.aiEjected;
+        this.humanEjected = other.humanEjected;
+        this.aiToMoveHashes = other.aiToMoveHashes.clone();
+        this.humanToMoveHashes = other.humanToMoveHashes.clone();
+        this.legalMoves = other.legalMoves == null ? null : new LegalMoveSet(other.legalMoves);
     }
     
     /**
@@ -120,6 +182,32 @@ public class Board {
         }        
     }
     
+    /**
+     * Builds the table of neighbors of each cell for each direction in the directions list.
+     *
+     * @return the neighbor table, with -1 for off-board neighbors
+     */
+    private int[][] buildNeighborTable() {
+        int[][] table = new int[61][directions.size()];
+        for (int i = 0; i < 61; i++) {
+            for (int d = 0; d < directions.size(); d++) {
+                table[i][d] = getNextCellInDirection(i, directions.get(d)[0], directions.get(d)[1]);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * O(1)
+     *
+     * @param cell the cell index
+     * @param direction the direction index
+     * @return the neighbor of the cell in that direction, or -1 if off board
+     */
+    public int getNeighbor(int cell, int direction) {
+        return neighbors[cell][direction];
+    }
+
     /**
      * Places the starting pieces for both players in the positions HashMap.
      */
@@ -137,12 +225,138 @@ public class Board {
         };
     
         for (int pos : whitePositions) {
-            positions.put(pos, aiPlayer);
+            placePiece(pos, aiPlayer);
         }
         for (int pos : blackPositions) {
-            positions.put(pos, humanPlayer);
+            placePiece(pos, humanPlayer);
+        }
+    }
+
+    /**
+     * Puts a piece on an empty cell and updates the masks and counters.
+     *
+     * @param cell the cell index
+     * @param player the owner of the piece
+     */
+    private void placePiece(int cell, Player player) {
+        positions.put(cell, player);
+        if (isAI(player)) {
+            aiMask |= 1L << cell;
+            aiCount++;
+        } else {
+            humanMask |= 1L << cell;
+            humanCount++;
+        }
+        toggleHashes(cell, player);
+        if (cellListener != null) {
+            cellListener.onPiecePlaced(cell, isAI(player));
+        }
+    }
+
+    /**
+     * Removes the piece on a cell and updates the masks and counters.
+     *
+     * @param cell the cell index
+     * @return the owner of the removed piece
+     */
+    private Player removePiece(int cell) {
+        Player player = positions.remove(cell);
+        if (isAI(player)) {
+            aiMask &= ~(1L << cell);
+            aiCount--;
+        } else {
+            humanMask &= ~(1L << cell);
+            humanCount--;
+        }
+        toggleHashes(cell, player);
+        if (cellListener != null) {
+            cellListener.onPieceRemoved(cell, isAI(player));
+        }
+        return player;
+    }
+
+    /**
+     * Sets the listener told about every piece placed or removed on this board.
+     * Clones of the board do not inherit the listener.
+     *
+     * @param cellListener the listener, or null to remove it
+     */
+    public void setCellListener(CellListener cellListener) {
+        this.cellListener = cellListener;
+    }
+
+    /**
+     * Turns on or off the incremental legal-move set. While it is on, the board keeps the legal
+     * moves of both sides, checks again only the moves that depend on the cells a move changes,
+     * and answers getPossibleMoves and getMobility without generating moves. Clones inherit it.
+     * O(s) where s is the number of move slots when turned on.
+     *
+     * @param enabled true to keep the legal moves up to date
+     */
+    public void setIncrementalMoves(boolean enabled) {
+        legalMoves = enabled ? new LegalMoveSet(aiMask, humanMask) : null;
+    }
+
+    /**
+     * Updates the incremental legal-move set after the masks changed.
+     *
+     * @param oldAIMask the AI pieces before the change
+     * @param oldHumanMask the human pieces before the change
+     */
+    private void updateLegalMoves(long oldAIMask, long oldHumanMask) {
+        if (legalMoves != null) {
+            legalMoves.update(aiMask, humanMask, (oldAIMask ^ aiMask) | (oldHumanMask ^ humanMask));
         }
     }
+
+    /**
+     * Adds or removes a piece from the hashes of all symmetric images.
+     *
+     * @param cell the cell index
+     * @param player the owner of the piece
+     */
+    private void toggleHashes(int cell, Player player) {
+        boolean ai = isAI(player);
+        long[] aiView = BoardSymmetry.cellKeys(ai ? BoardSymmetry.OWN : BoardSymmetry.OPPONENT, cell);
+        long[] humanView = BoardSymmetry.cellKeys(ai ? BoardSymmetry.OPPONENT : BoardSymmetry.OWN, cell);
+        for (int t = 0; t < BoardSymmetry.COUNT; t++) {
+            aiToMoveHashes[t] ^= aiView[t];
+            humanToMoveHashes[t] ^= humanView[t];
+        }
+    }
+
+    /**
+     * Removes a piece pushed off the board and counts it as ejected.
+     *
+     * @param cell the cell the piece was pushed from
+     */
+    private void ejectPiece(int cell) {
+        Player player = removePiece(cell);
+        if (isAI(player)) {
+            aiEjected++;
+        } else {
+            humanEjected++;
+        }
+    }
+
+    /**
+     * Puts an ejected piece back on the board when a push is undone.
+     *
+     * @param cell the cell the piece was pushed from
+     * @param player the owner of the piece
+     */
+    private void restoreEjectedPiece(int cell, Player player) {
+        placePiece(cell, player);
+        if (isAI(player)) {
+            aiEjected--;
+        } else {
+            humanEjected--;
+        }
+    }
+
+    private boolean isAI(Player player) {
+        return player == aiPlayer || player.getName().equals(aiPlayer.getName());
+    }
     
     /**
      * Calcluates the next cell in the direction of 'from' to 'to'.
@@ -165,134 +379,211 @@ public class Board {
     }
 
     /**
-     * Checks if a given move is valid.
-     *  O(n) where n is the number of pieces on the board.
+     * Checks if a given move is valid for the owner of its from cell.
+     * O(1)
      * 
      * @param move the move to validate
      * @return true if the move is valid, false otherwise
      */
     public boolean isValidMove(Move move) {
-        int from = move.getFrom();
-        int to = move.getTo();
-        
-        // Calcluates the next the direction of 'from' to 'to' and checks that it exits.
-        int[] fromCoord = indexToCoord.get(from);
-        int[] toCoord = indexToCoord.get(to);
-        int dq = toCoord[0] - fromCoord[0];
-        int dr = toCoord[1] - fromCoord[1];
+        boolean valid = isValidMoveUnchecked(move);
+        if (ShadowValidator.ENABLED) ShadowValidator.checkValid(aiMask, humanMask, move, valid);
+        return valid;
+    }
 
-        int[] direction = {dq, dr};
-        if (!directions.stream().anyMatch(d -> java.util.Arrays.equals(d, direction))) {
+    private boolean isValidMoveUnchecked(Move move) {
+        int from = move.getFrom();
+        if (from < 0 || from >= 61 || move.getTo() < 0 || move.getTo() >= 61) {
             return false;
         }
-        
-        // Get the list of pieces in the direction starting at 'from'.
-        List<Integer> group = getListOfPiecesInDirection(from, dq, dr); // O(n)
-        int leading = group.get(group.size() - 1);
-        int next = getNextCellInDirection(leading, dq, dr);
-        
-        // Ok if next cell is on the board and empty.
-        if (next != -1 && !positions.containsKey(next)) {
-            return true;
-        }
-        
-        // Not okay if next is off board.
-        if (next == -1) {
+        int direction = MoveGenerator.direction(from, move.getTo());
+        if (direction == -1 || (aiMask & 1L << from) == 0 && (humanMask & 1L << from) == 0) {
             return false;
         }
-        
-        // Gets the opponent list of pieces in the direction starting from 'next'.
-        List<Integer> opponentGroup = getListOfPiecesInDirection(next, dq, dr);
-        
-        // OK push if mover's group is larger than opponent group and
-        // the destination cell is either off board or empty.
-        if (group.size() > opponentGroup.size()) {
-            int pushDestination = getNextCellInDirection(opponentGroup.get(opponentGroup.size() - 1), dq, dr);
-            if (pushDestination == -1 || !positions.containsKey(pushDestination)) {
-                return true;
-            }
+        long own = (aiMask & 1L << from) != 0 ? aiMask : humanMask;
+        long opponent = own == aiMask ? humanMask : aiMask;
+        if (move.isBroadside()) {
+            int groupEnd = move.getGroupEnd();
+            return groupEnd >= 0 && groupEnd < 61
+                    && MoveGenerator.isLegalBroadside(own, opponent, from, direction, groupEnd);
         }
-
-        // false in any other case.
-        return false;
+        return MoveGenerator.inlineMoverCount(own, opponent, from, direction) > 0;
     }
     
     /**
      * Applies a valid move to the board.
-     * O(n) where n is the number of pieces on the board.
+     * O(1)
      * 
      * @param move the move to apply
+     * @return the MoveDelta describing the change, which undoMove can reverse
      */
-    public void applyMove(Move move) {
+    public int applyMove(Move move) {
         int from = move.getFrom();
-        int to = move.getTo();
-        
-        // Calcluates the next the direction of 'from' to 'to' and checks that it exits.
-        int[] fromCoord = indexToCoord.get(from);
-        int[] toCoord = indexToCoord.get(to);
-        int dq = toCoord[0] - fromCoord[0];
-        int dr = toCoord[1] - fromCoord[1];
-        
-        // Get the mover's list of pieces in the same direction.
-        List<Integer> group = getListOfPiecesInDirection(from, dq, dr); // O(n)
-        int leadingPiece = group.get(group.size() - 1); //leading piece in the direction of the move.
-        int next = getNextCellInDirection(leadingPiece, dq, dr);
-        
-        // Regular move: move one cell forward if the next cell is not off board and empty.
-        if (next != -1 && !positions.containsKey(next)) {
-            for (int i = group.size() - 1; i >= 0; i--) {
-                int pos = group.get(i);
-                Player mover = positions.remove(pos);
-                int dest = getNextCellInDirection(pos, dq, dr);
-                positions.put(dest, mover);
+        int direction = MoveGenerator.direction(from, move.getTo());
+        long own = (aiMask & 1L << from) != 0 ? aiMask : humanMask;
+        long opponent = own == aiMask ? humanMask : aiMask;
+        long oldAIMask = aiMask;
+        long oldHumanMask = humanMask;
+
+        if (move.isBroadside()) {
+            // Every piece of the line steps sideways; the destinations are empty so the order does not matter.
+            int axis = MoveGenerator.lineDirection(from, move.getGroupEnd());
+            int moverCount = MoveGenerator.lineLength(from, move.getGroupEnd());
+            int cell = from;
+            for (int k = 0; k < moverCount; k++) {
+                placePiece(neighbors[cell][direction], removePiece(cell));
+                cell = neighbors[cell][axis];
             }
-        } else {
-            // Push move.
-            List<Integer> opponentGroup = getListOfPiecesInDirection(next, dq, dr);
-            // Move opponent group first, from last to first.
-            for (int i = opponentGroup.size() - 1; i >= 0; i--) {
-                int oppPos = opponentGroup.get(i);
-                int destination = getNextCellInDirection(oppPos, dq, dr);
-                // If the destination is off board, remove the piece.
-                if (destination == -1) {
-                    positions.remove(oppPos);
-                } else {
-                    Player opp = positions.remove(oppPos);
-                    positions.put(destination, opp);
-                }
+            updateLegalMoves(oldAIMask, oldHumanMask);
+            if (ShadowValidator.ENABLED) ShadowValidator.checkApply(oldAIMask, oldHumanMask, move, aiMask, humanMask);
+            return MoveDelta.encodeBroadside(from, direction, axis, moverCount);
+        }
+
+        int moverCount = MoveGenerator.inlineMoverCount(own, opponent, from, direction);
+        int pushedCount = MoveGenerator.pushedCount(own, opponent, from, direction);
+        boolean ejected = false;
+
+        // Walk to the front piece of the line, then move the pieces front first so that every
+        // destination is empty when it is filled.
+        int cell = from;
+        for (int k = 1; k < moverCount + pushedCount; k++) {
+            cell = neighbors[cell][direction];
+        }
+        int back = MoveGenerator.opposite(direction);
+        for (int k = moverCount + pushedCount; k > 0; k--) {
+            int target = neighbors[cell][direction];
+            if (target == -1) {
+                ejectPiece(cell);
+                ejected = true;
+            } else {
+                placePiece(target, removePiece(cell));
             }
-            // Afterwards move your group forward.
-            for (int i = group.size() - 1; i >= 0; i--) {
-                int pos = group.get(i);
-                Player mover = positions.remove(pos);
-                int dest = getNextCellInDirection(pos, dq, dr);
-                positions.put(dest, mover);
+            cell = neighbors[cell][back];
+        }
+        updateLegalMoves(oldAIMask, oldHumanMask);
+        if (ShadowValidator.ENABLED) ShadowValidator.checkApply(oldAIMask, oldHumanMask, move, aiMask, humanMask);
+        return MoveDelta.encode(from, direction, moverCount, pushedCount, ejected);
+    }
+
+    /**
+     * Checks whether a valid move pushes opponent pieces.
+     * O(1)
+     *
+     * @param move a valid move
+     * @return true if the cell in front of the moving group holds an opponent piece
+     */
+    public boolean isPushMove(Move move) {
+        if (move.isBroadside()) {
+            return false;
+        }
+        int from = move.getFrom();
+        long own = (aiMask & 1L << from) != 0 ? aiMask : humanMask;
+        long opponent = own == aiMask ? humanMask : aiMask;
+        return MoveGenerator.pushedCount(own, opponent, from, MoveGenerator.direction(from, move.getTo())) > 0;
+    }
+
+    /**
+     * Reverses a move previously applied with applyMove.
+     * O(1)
+     *
+     * @param delta the MoveDelta returned by applyMove
+     */
+    public void undoMove(int delta) {
+        if (delta == MoveDelta.PASS) {
+            return;
+        }
+        int direction = MoveDelta.direction(delta);
+        int moverCount = MoveDelta.moverCount(delta);
+        int pushedCount = MoveDelta.pushedCount(delta);
+        long oldAIMask = aiMask;
+        long oldHumanMask = humanMask;
+
+        if (MoveDelta.broadside(delta)) {
+            int cell = MoveDelta.from(delta);
+            for (int k = 0; k < moverCount; k++) {
+                placePiece(cell, removePiece(neighbors[cell][direction]));
+                cell = neighbors[cell][MoveDelta.axis(delta)];
             }
+            updateLegalMoves(oldAIMask, oldHumanMask);
+            return;
+        }
+
+        // Walk the line from the rear of the moving group, pulling every piece back one cell: the
+        // group first, then the pushed pieces behind it. Only the last pushed piece can have been ejected.
+        int cell = MoveDelta.from(delta);
+        int last = moverCount + pushedCount - 1;
+        Player mover = positions.get(neighbors[cell][direction]);
+        for (int k = 0; k <= last; k++) {
+            int next = neighbors[cell][direction];
+            if (k == last && MoveDelta.ejected(delta)) {
+                restoreEjectedPiece(cell, opponentPlayer(mover));
+            } else {
+                placePiece(cell, removePiece(next));
+            }
+            cell = next;
+        }
+        updateLegalMoves(oldAIMask, oldHumanMask);
+    }
+
+    /**
+     * Replaces the whole position with the given occupancy masks.
+     * Pieces missing from the 14 starting pieces are counted as ejected.
+     * O(n) where n is the number of cells.
+     *
+     * @param newAIMask occupancy mask of the AI pieces
+     * @param newHumanMask occupancy mask of the human pieces
+     */
+    public void setPosition(long newAIMask, long newHumanMask) {
+        // Remove the pieces one by one so that hashes and the cell listener stay in step.
+        long occupied = aiMask | humanMask;
+        while (occupied != 0) {
+            removePiece(Long.numberOfTrailingZeros(occupied));
+            occupied &= occupied - 1;
+        }
+        for (int i = 0; i < 61; i++) {
+            if ((newAIMask & (1L << i)) != 0) {
+                placePiece(i, aiPlayer);
+            } else if ((newHumanMask & (1L << i)) != 0) {
+                placePiece(i, humanPlayer);
+            }
+        }
+        aiEjected = 14 - aiCount;
+        humanEjected = 14 - humanCount;
+        if (legalMoves != null) {
+            legalMoves = new LegalMoveSet(aiMask, humanMask);
         }
     }
     
     /**
-     * Returns a list of all possible moves for the specified player.
-     * O(n) where n is the number of pieces on the board.
+     * Returns a list of all possible moves for the specified player:
+     * in-line moves and pushes of up to three pieces, and broadside moves of two or three.
+     * O(n) where n is the number of the player's pieces.
      * 
      * @param player the player to get possible moves for
      * @return a list of valid moves
      */
     public List<Move> getPossibleMoves(Player player) {
-        List<Move> moves = new ArrayList<>();
-        for (Map.Entry<Integer, Player> entry : positions.entrySet()) {
-            if (entry.getValue().equals(player)) {
-                int from = entry.getKey();
-                for (int to : graph.get(from)) {
-                    Move move = new Move(from, to);
-                    if (isValidMove(move)) {
-                        moves.add(move);
-                    }
-                }
-            }
-        }
+        boolean ai = isAI(player);
+        List<Move> moves = legalMoves != null ? legalMoves.moves(ai)
+                : MoveGenerator.generateMoves(ai ? aiMask : humanMask, ai ? humanMask : aiMask);
+        if (ShadowValidator.ENABLED) ShadowValidator.checkMoves(aiMask, humanMask, ai, moves);
         return moves;
     }
+
+    /**
+     * Returns the number of legal moves of the player.
+     * O(1) with incremental moves enabled, O(n) where n is the number of the player's pieces otherwise.
+     *
+     * @param player the player whose moves to count
+     * @return the number of legal moves
+     */
+    public int getMobility(Player player) {
+        boolean ai = isAI(player);
+        if (legalMoves != null) {
+            return legalMoves.count(ai);
+        }
+        return MoveGenerator.generate(ai ? aiMask : humanMask, ai ? humanMask : aiMask, new int[MoveGenerator.MAX_MOVES]);
+    }
     
    
     public Map<Integer, Player> getPositionsMap() {
@@ -365,6 +656,16 @@ public class Board {
         return player.getName().equals(aiPlayer.getName()) ? Color.WHITE : Color.BLACK;
     }
 
+    /**
+     * Returns the current position as an immutable value that any thread can keep.
+     * O(1)
+     *
+     * @return the position
+     */
+    public Position snapshot() {
+        return new Position(aiMask, humanMask);
+    }
+
     public Map<Integer, Player> getPositions() {
         return positions;
     }
@@ -377,6 +678,90 @@ public class Board {
         return coordToIndex;
     }
     
+    /**
+     * Returns the occupancy mask of the given player, where bit i is set when cell i
+     * holds one of the player's pieces.
+     * O(1)
+     *
+     * @param player the player to get the mask for
+     * @return the 61-bit occupancy mask
+     */
+    public long getOccupancyMask(Player player) {
+        return isAI(player) ? aiMask : humanMask;
+    }
+
+    /**
+     * Returns the hash of the position as it is, with the given player to move.
+     * O(1)
+     *
+     * @param toMove the player to move
+     * @return the Zobrist hash of the position
+     */
+    public long getHash(Player toMove) {
+        return isAI(toMove) ? aiToMoveHashes[0] : humanToMoveHashes[0];
+    }
+
+    /**
+     * Returns the key shared by all symmetric and colour-swapped images of this position.
+     * O(1)
+     *
+     * @param toMove the player to move
+     * @return the smallest hash over the 12 symmetric images
+     */
+    public long getCanonicalKey(Player toMove) {
+        long[] hashes = isAI(toMove) ? aiToMoveHashes : humanToMoveHashes;
+        return hashes[BoardSymmetry.canonicalTransform(hashes)];
+    }
+
+    /**
+     * Returns the symmetry that maps this position onto its canonical image.
+     * Cells of this board map to the canonical image with BoardSymmetry.transformCell.
+     * O(1)
+     *
+     * @param toMove the player to move
+     * @return the transform index
+     */
+    public int getCanonicalTransform(Player toMove) {
+        return BoardSymmetry.canonicalTransform(isAI(toMove) ? aiToMoveHashes : humanToMoveHashes);
+    }
+
+    /**
+     * O(1)
+     *
+     * @param player the player to count
+     * @return the number of pieces the player has on the board
+     */
+    public int getMarbleCount(Player player) {
+        return isAI(player) ? aiCount : humanCount;
+    }
+
+    /**
+     * O(1)
+     *
+     * @param player the player whose lost pieces to count
+     * @return the number of the player's pieces pushed off the board
+     */
+    public int getEjectedCount(Player player) {
+        return isAI(player) ? aiEjected : humanEjected;
+    }
+
+    /**
+     * O(1)
+     *
+     * @return true if either player has 8 or fewer pieces left
+     */
+    public boolean isGameOver() {
+        return aiCount <= 8 || humanCount <= 8;
+    }
+
+    public Player getAIPlayer() {
+        return aiPlayer;
+    }
+
+    public Player getHumanPlayer() {
+        return humanPlayer;
+    }
+
     public Player opponentPlayer(Player player){
         if(player.getName().equals(aiPlayer.getName())) {
             return humanPlayer;
@@ -394,19 +779,16 @@ public class Board {
      * @return the count of winning moves for the opponent
      */
     public int countOpponentWinningMoves(Board board, Player player) {
+        // A move ejects at most one piece, so nothing can win while the player has more than 9.
+        if (board.getMarbleCount(player) > 9) {
+            return 0;
+        }
         int winningMoves = 0;
         List<Move> moves = board.getPossibleMoves(opponentPlayer(player));
         for (Move move : moves) {
             Board simulatedBoard = board.clone(); 
             simulatedBoard.applyMove(move);
-            int count = 0;
-            for (Player p : simulatedBoard.getPositionsMap().values()) {
-                if (p.getName().equals(player.getName())) {
-                    count++;
-                }
-            }
-
-            if (count <= 8) {
+            if (simulatedBoard.getMarbleCount(player) <= 8) {
                 winningMoves++;
             }
         }
@@ -0,0 +1,197 @@
+package com.abalone.model;
+
+import com.abalone.model.utils.Move;
+
+import java.util.SplittableRandom;
+
+/**
+ * Symmetries of the hexagonal board and the Zobrist keys used to hash positions.
+ *
+ * The board has 12 symmetries: the 6 rotations by 60 degrees, each optionally combined with a
+ * reflection. Every symmetry is precomputed as a permutation of the 61 cell indexes, numbered as in
+ * Board.initializeAxialHashMaps. Positions are hashed from the point of view of the side to move
+ * (own pieces and opponent pieces use different keys), so a position and its colour-swapped
+ * twin with the other side to move get the same key as well.
+ *
+ * Board keeps the hash of every symmetric image up to date in placePiece/removePiece, so the
+ * canonical key (the smallest of the 12 images) is available without a rescan.
+ */
+public final class BoardSymmetry {
+    public static final int COUNT = 12;
+    public static final int CELLS = 61;
+    public static final int OWN = 0;
+    public static final int OPPONENT = 1;
+
+    private static final int[][] PERMUTATIONS = new int[COUNT][CELLS];
+    private static final int[] INVERSE = new int[COUNT];
+    private static final int[] CENTER_DISTANCE = new int[CELLS];
+    // CELL_KEYS[side][cell][t]: key of a piece of that side on that cell in the image under transform t.
+    private static final long[][][] CELL_KEYS = new long[2][CELLS][COUNT];
+
+    static {
+        int[][] coords = new int[CELLS][];
+        int[] coordToCell = new int[81];
+        int[] rowCellCounts = {5, 6, 7, 8, 9, 8, 7, 6, 5};
+        int index = 0;
+        for (int i = 0; i < rowCellCounts.length; i++) {
+            int r = -4 + i;
+            for (int q = Math.max(-4, -r - 4); q <= Math.min(4, -r + 4); q++) {
+                coords[index] = new int[]{q, r};
+                coordToCell[(q + 4) * 9 + (r + 4)] = index;
+                CENTER_DISTANCE[index] = Math.max(Math.abs(q), Math.max(Math.abs(r), Math.abs(q + r)));
+                index++;
+            }
+        }
+
+        for (int t = 0; t < COUNT; t++) {
+            for (int cell = 0; cell < CELLS; cell++) {
+                int q = coords[cell][0];
+                int r = coords[cell][1];
+                if (t >= 6) {
+                    // Reflect across the q = r axis first.
+                    int swap = q;
+                    q = r;
+                    r = swap;
+                }
+                for (int k = 0; k < t % 6; k++) {
+                    // Rotate by 60 degrees: cube (x, y, z) -> (-z, -x, -y).
+                    int rotatedQ = -r;
+                    r = q + r;
+                    q = rotatedQ;
+                }
+                PERMUTATIONS[t][cell] = coordToCell[(q + 4) * 9 + (r + 4)];
+            }
+        }
+
+        for (int t = 0; t < COUNT; t++) {
+            for (int u = 0; u < COUNT; u++) {
+                if (PERMUTATIONS[u][PERMUTATIONS[t][0]] == 0 && PERMUTATIONS[u][PERMUTATIONS[t][1]] == 1
+                        && PERMUTATIONS[u][PERMUTATIONS[t][5]] == 5) {
+                    INVERSE[t] = u;
+                }
+            }
+        }
+
+        // Fixed seed so that keys, books and caches stay valid across runs.
+        SplittableRandom random = new SplittableRandom(0x5EED_AB41_0E5EL);
+        long[][] keys = new long[2][CELLS];
+        for (int side = 0; side < 2; side++) {
+            for (int cell = 0; cell < CELLS; cell++) {
+                keys[side][cell] = random.nextLong();
+            }
+        }
+        for (int side = 0; side < 2; side++) {
+            for (int cell = 0; cell < CELLS; cell++) {
+                for (int t = 0; t < COUNT; t++) {
+                    CELL_KEYS[side][cell][t] = keys[side][PERMUTATIONS[t][cell]];
+                }
+            }
+        }
+    }
+
+    private BoardSymmetry() {
+    }
+
+    /**
+     * @param t the transform index, 0 is the identity
+     * @param cell the cell index
+     * @return the cell the given cell maps to under the transform
+     */
+    public static int transformCell(int t, int cell) {
+        return PERMUTATIONS[t][cell];
+    }
+
+    /**
+     * @param t the transform index
+     * @param move a move
+     * @return the image of the move under the transform
+     */
+    public static Move transformMove(int t, Move move) {
+        int groupEnd = move.getGroupEnd();
+        return new Move(PERMUTATIONS[t][move.getFrom()], PERMUTATIONS[t][move.getTo()],
+                groupEnd == -1 ? -1 : PERMUTATIONS[t][groupEnd]);
+    }
+
+    /**
+     * Returns the hex distance of a cell from the center, which every symmetry preserves.
+     * Edge cells are at distance 4.
+     *
+     * @param cell the cell index
+     * @return the distance from the center cell
+     */
+    public static int centerDistance(int cell) {
+        return CENTER_DISTANCE[cell];
+    }
+
+    /**
+     * @param t the transform index
+     * @return the index of the transform that undoes t
+     */
+    public static int inverse(int t) {
+        return INVERSE[t];
+    }
+
+    /**
+     * @param t the transform index
+     * @param mask an occupancy mask
+     * @return the mask of the transformed cells
+     */
+    public static long transformMask(int t, long mask) {
+        long result = 0L;
+        while (mask != 0) {
+            int cell = Long.numberOfTrailingZeros(mask);
+            result |= 1L << PERMUTATIONS[t][cell];
+            mask &= mask - 1;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the keys of a piece on a cell in each of the 12 images.
+     *
+     * @param side OWN for a piece of the side to move, OPPONENT otherwise
+     * @param cell the cell index
+     * @return the per-transform keys, indexed by transform; not to be modified
+     */
+    static long[] cellKeys(int side, int cell) {
+        return CELL_KEYS[side][cell];
+    }
+
+    /**
+     * Computes the canonical key of a position from scratch.
+     *
+     * @param ownMask pieces of the side to move
+     * @param opponentMask pieces of the other side
+     * @return the smallest hash over the 12 symmetric images
+     */
+    public static long canonicalKey(long ownMask, long opponentMask) {
+        long[] hashes = new long[COUNT];
+        hashInto(hashes, ownMask, OWN);
+        hashInto(hashes, opponentMask, OPPONENT);
+        return hashes[canonicalTransform(hashes)];
+    }
+
+    /**
+     * @param hashes the hashes of the 12 images
+     * @return the transform whose image has the smallest hash
+     */
+    static int canonicalTransform(long[] hashes) {
+        int best = 0;
+        for (int t = 1; t < COUNT; t++) {
+            if (hashes[t] < hashes[best]) {
+                best = t;
+            }
+        }
+        return best;
+    }
+
+    private static void hashInto(long[] hashes, long mask, int side) {
+        while (mask != 0) {
+            long[] keys = CELL_KEYS[side][Long.numberOfTrailingZeros(mask)];
+            for (int t = 0; t < COUNT; t++) {
+                hashes[t] ^= keys[t];
+            }
+            mask &= mask - 1;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.abalone.model;
+
+/**
+ * Observes every piece placed on or removed from a Board, for state that is kept
+ * incrementally alongside the board, such as an evaluator's accumulator.
+ */
+public interface CellListener {
+
+    /**
+     * @param cell the cell index
+     * @param ai true if the piece belongs to the AI
+     */
+    void onPiecePlaced(int cell, boolean ai);
+
+    /**
+     * @param cell the cell index
+     * @param ai true if the piece belongs to the AI
+     */
+    void onPieceRemoved(int cell, boolean ai);
+}
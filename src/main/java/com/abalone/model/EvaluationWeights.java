@@ -0,0 +1,163 @@
+package com.abalone.model;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * Holds the weights used by the StateMachine heuristics.
+ * Weights are stored as a properties file so tuned values can be loaded at runtime.
+ */
+public class EvaluationWeights {
+    /** System property naming a weights file to load instead of the defaults. */
+    public static final String WEIGHTS_PROPERTY = "abalone.weights";
+
+    /** Property keys, in the same order as toArray(). */
+    public static final String[] NAMES = {
+        "push.groupAdvantage", "push.ejection", "push.towardEdge",
+        "centering", "defensive", "boardControl", "edgeVulnerability"
+    };
+
+    private static final int[] DEFAULTS = {10, 100, 30, 20, 10000, 5, 200};
+
+    private final int pushGroupAdvantage;
+    private final int pushEjection;
+    private final int pushTowardEdge;
+    private final int centering;
+    private final int defensive;
+    private final int boardControl;
+    private final int edgeVulnerability;
+
+    /**
+     * Creates weights from an array ordered like NAMES.
+     *
+     * @param values the weight values
+     */
+    public EvaluationWeights(int[] values) {
+        if (values.length != NAMES.length) {
+            throw new IllegalArgumentException("Expected " + NAMES.length + " weights, got " + values.length);
+        }
+        this.pushGroupAdvantage = values[0];
+        this.pushEjection = values[1];
+        this.pushTowardEdge = values[2];
+        this.centering = values[3];
+        this.defensive = values[4];
+        this.boardControl = values[5];
+        this.edgeVulnerability = values[6];
+    }
+
+    /**
+     * @return the built-in weights
+     */
+    public static EvaluationWeights defaults() {
+        return new EvaluationWeights(DEFAULTS);
+    }
+
+    /**
+     * Loads the weights named by the abalone.weights system property, falling back to the defaults
+     * when the property is not set.
+     *
+     * @return the configured weights
+     */
+    public static EvaluationWeights configured() {
+        String path = System.getProperty(WEIGHTS_PROPERTY);
+        if (path == null) {
+            return defaults();
+        }
+        try {
+            return load(Paths.get(path));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read weights file " + path, e);
+        }
+    }
+
+    /**
+     * Loads weights from a properties file. Missing keys keep their default value.
+     *
+     * @param path the weights file
+     * @return the loaded weights
+     * @throws IOException if the file cannot be read
+     */
+    public static EvaluationWeights load(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            properties.load(reader);
+        }
+        int[] values = DEFAULTS.clone();
+        for (int i = 0; i < NAMES.length; i++) {
+            String value = properties.getProperty(NAMES[i]);
+            if (value != null) {
+                values[i] = Integer.parseInt(value.trim());
+            }
+        }
+        return new EvaluationWeights(values);
+    }
+
+    /**
+     * Writes the weights to a properties file.
+     *
+     * @param path the destination file
+     * @param comment a comment for the file header
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path path, String comment) throws IOException {
+        Properties properties = new Properties();
+        int[] values = toArray();
+        for (int i = 0; i < NAMES.length; i++) {
+            properties.setProperty(NAMES[i], Integer.toString(values[i]));
+        }
+        try (Writer writer = Files.newBufferedWriter(path)) {
+            properties.store(writer, comment);
+        }
+    }
+
+    /**
+     * @return the weights ordered like NAMES
+     */
+    public int[] toArray() {
+        return new int[]{pushGroupAdvantage, pushEjection, pushTowardEdge, centering, defensive, boardControl, edgeVulnerability};
+    }
+
+    public int getPushGroupAdvantage() {
+        return pushGroupAdvantage;
+    }
+
+    public int getPushEjection() {
+        return pushEjection;
+    }
+
+    public int getPushTowardEdge() {
+        return pushTowardEdge;
+    }
+
+    public int getCentering() {
+        return centering;
+    }
+
+    public int getDefensive() {
+        return defensive;
+    }
+
+    public int getBoardControl() {
+        return boardControl;
+    }
+
+    public int getEdgeVulnerability() {
+        return edgeVulnerability;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        int[] values = toArray();
+        for (int i = 0; i < NAMES.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(NAMES[i]).append('=').append(values[i]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,48 @@
+package com.abalone.model;
+
+import com.abalone.model.utils.Move;
+import com.abalone.model.utils.Players.Player;
+
+/**
+ * Receives the changes published by GameManager.
+ * Events are delivered on the thread that applied the move.
+ */
+public interface GameListener {
+
+    /**
+     * Called after a move has been applied to the board.
+     * @param move the applied move
+     * @param mover the player who made the move
+     */
+    default void onMoveApplied(Move move, Player mover) {
+    }
+
+    /**
+     * Called when a move pushed one or more marbles off the board.
+     * @param owner the player who lost the marbles
+     * @param remaining the number of marbles that player has left
+     */
+    default void onMarbleEjected(Player owner, int remaining) {
+    }
+
+    /**
+     * Called when the turn passes to the other player.
+     * @param humanTurn true if it is now the human's turn
+     */
+    default void onTurnChanged(boolean humanTurn) {
+    }
+
+    /**
+     * Called when the board was moved through the history by undo, redo or a jump.
+     * @param humanTurn true if it is now the human's turn
+     */
+    default void onPositionChanged(boolean humanTurn) {
+    }
+
+    /**
+     * Called once when the game ends.
+     * @param winner the winner's name
+     */
+    default void onGameOver(String winner) {
+    }
+}
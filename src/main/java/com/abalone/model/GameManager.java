@@ -1,36 +1,300 @@
 package com.abalone.model;
 
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.abalone.model.search.AnalysisListener;
+import com.abalone.model.search.AnalysisResult;
+import com.abalone.model.search.Search;
 import com.abalone.model.utils.Move;
+import com.abalone.model.utils.MoveDelta;
 import com.abalone.model.utils.Players.AIPlayer;
 import com.abalone.model.utils.Players.Player;
 
 public class GameManager {
+    /**
+     * Size of a hibernated game: long AI mask with the turn in bit 63, long human mask and int
+     * history pointer. Scores are the marble counts, so they come back with the masks.
+     */
+    public static final int SNAPSHOT_SIZE = 20;
+    private static final long HUMAN_TURN_BIT = 1L << 63;
+
     private final Board board;
     private final Player humanPlayer;
     private final AIPlayer aiPlayer;
     private boolean isHumanTurn;
     private int humanScore;
     private int aiScore;
+    private final List<GameListener> listeners = new CopyOnWriteArrayList<>();
+    private final MoveHistory history;
+    // Written on the game thread after every change of the board; read from any thread.
+    private volatile Position position;
 
     public GameManager() {
         this.humanPlayer = new Player("Human");
         this.aiPlayer = new AIPlayer("AI");
         this.board = new Board(aiPlayer, humanPlayer);
+        // StateMachine reads the mobility of both sides for every candidate move.
+        board.setIncrementalMoves(true);
         this.isHumanTurn = true;
         this.aiScore = 14;
         this.humanScore = 14;
+        this.history = new MoveHistory(board);
+        this.position = board.snapshot();
+    }
+
+    /**
+     * Restores a game hibernated with toSnapshot.
+     * O(n) where n is the number of recorded moves.
+     *
+     * @param snapshot the SNAPSHOT_SIZE bytes returned by toSnapshot
+     * @param historyRecord the MoveHistory.toArray record kept under the snapshot's history pointer
+     */
+    public GameManager(byte[] snapshot, int[] historyRecord) {
+        ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+        long first = buffer.getLong();
+        long humanMask = buffer.getLong();
+        this.humanPlayer = new Player("Human");
+        this.aiPlayer = new AIPlayer("AI");
+        this.board = new Board(aiPlayer, humanPlayer, first & ~HUMAN_TURN_BIT, humanMask);
+        this.isHumanTurn = (first & HUMAN_TURN_BIT) != 0;
+        this.history = MoveHistory.restore(board, historyRecord);
+        // Replaying the history is cheaper without the incremental move set, so it is built afterwards.
+        board.setIncrementalMoves(true);
+        updatePlayersScores();
+        this.position = board.snapshot();
+    }
+
+    /**
+     * Packs the position and turn of the game into SNAPSHOT_SIZE bytes. The move history, which
+     * grows with the game, is kept by the caller under historyPointer (see getHistoryRecord).
+     * Listeners are not part of the snapshot.
+     *
+     * @param historyPointer where the caller keeps the history record
+     * @return the snapshot
+     */
+    public byte[] toSnapshot(int historyPointer) {
+        return ByteBuffer.allocate(SNAPSHOT_SIZE)
+                .putLong(board.getOccupancyMask(aiPlayer) | (isHumanTurn ? HUMAN_TURN_BIT : 0))
+                .putLong(board.getOccupancyMask(humanPlayer))
+                .putInt(historyPointer)
+                .array();
+    }
+
+    /**
+     * @param snapshot a snapshot returned by toSnapshot
+     * @return the history pointer stored in it
+     */
+    public static int historyPointer(byte[] snapshot) {
+        return ByteBuffer.wrap(snapshot).getInt(16);
+    }
+
+    /**
+     * @return the move history in the compact form of MoveHistory.toArray
+     */
+    public int[] getHistoryRecord() {
+        return history.toArray();
+    }
+
+    /**
+     * @return the number of moves the AI generated in this game
+     */
+    public int getAIMovesPlayed() {
+        return aiPlayer.getMovesPlayed();
+    }
+
+    /**
+     * @return the time left on the AI's game clock, or -1 if no clock is configured
+     */
+    public long getAIRemainingMillis() {
+        return aiPlayer.getRemainingMillis();
+    }
+
+    /**
+     * Restores the AI's game clock of a hibernated game, which the snapshot does not hold.
+     *
+     * @param movesPlayed the value of getAIMovesPlayed when the game was hibernated
+     * @param remainingMillis the value of getAIRemainingMillis when the game was hibernated
+     */
+    public void restoreAIClock(int movesPlayed, long remainingMillis) {
+        aiPlayer.restoreClock(movesPlayed, remainingMillis);
     }
 
     /**
      * asks the AIPlayer to generate a move .
+     * The AI thinks on its own board built from the current position, so it can run on any
+     * thread while the game board is rendered or changed.
      * @return the chosen Move, or null if no moves are available
      */
     public Move getAIMove() {
-       return aiPlayer.generateAIMove(board);
+       return aiPlayer.generateAIMove(privateBoard(position));
+    }
+
+    /**
+     * Analyses the current position for the player to move and reports the k best moves.
+     * Improved results are streamed to the listener as the search deepens. The analysis reads
+     * the position current when it starts and never the game board, so it can run on any thread.
+     *
+     * @param multiPv the number of best moves to report
+     * @param maxDepth the deepest iteration to run
+     * @param timeLimitMillis the time limit, or 0 for none
+     * @param listener receives every completed iteration, or null
+     * @return the result of the deepest completed iteration
+     */
+    public AnalysisResult analyze(int multiPv, int maxDepth, long timeLimitMillis, AnalysisListener listener) {
+        Position start = position;
+        Search search = new Search();
+        return search.analyze(privateBoard(start), isHumanTurn ? humanPlayer : aiPlayer, multiPv, maxDepth,
+                timeLimitMillis, listener);
     }
 
     /**
-     * @return the current Board instance
+     * Builds a board of the game's players at the given position, sharing nothing with the game board.
+     * O(n)
+     */
+    private Board privateBoard(Position start) {
+        Board copy = new Board(aiPlayer, humanPlayer, start.getAIMask(), start.getHumanMask());
+        // StateMachine reads the mobility of both sides for every candidate move.
+        copy.setIncrementalMoves(true);
+        return copy;
+    }
+
+    /**
+     * Registers a listener for game events.
+     * @param listener the listener to add
+     */
+    public void addListener(GameListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener the listener to remove
+     */
+    public void removeListener(GameListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Applies a move for the player whose turn it is, updates the scores and notifies listeners.
+     * Publishes the move, any ejection, and then either the game over or the turn change.
+     *
+     * @param move a valid move for the player to move
+     */
+    public void applyMove(Move move) {
+        Player mover = isHumanTurn ? humanPlayer : aiPlayer;
+        Player opponent = isHumanTurn ? aiPlayer : humanPlayer;
+        int opponentScoreBefore = isHumanTurn ? aiScore : humanScore;
+        history.record(board.applyMove(move));
+        position = board.snapshot();
+        updatePlayersScores();
+        int opponentScoreAfter = isHumanTurn ? aiScore : humanScore;
+
+        for (GameListener listener : listeners) {
+            listener.onMoveApplied(move, mover);
+        }
+        if (opponentScoreAfter < opponentScoreBefore) {
+            for (GameListener listener : listeners) {
+                listener.onMarbleEjected(opponent, opponentScoreAfter);
+            }
+        }
+        if (isGameOver()) {
+            String winner = getWinner();
+            for (GameListener listener : listeners) {
+                listener.onGameOver(winner);
+            }
+            return;
+        }
+        switchTurn();
+    }
+
+    /**
+     * Passes the turn when the player to move has no legal move. The pass is recorded in the history.
+     */
+    public void passTurn() {
+        history.record(MoveDelta.PASS);
+        switchTurn();
+    }
+
+    /**
+     * @return true if there is a move to take back
+     */
+    public boolean canUndo() {
+        return history.canUndo();
+    }
+
+    /**
+     * @return true if there is a taken back move to replay
+     */
+    public boolean canRedo() {
+        return history.canRedo();
+    }
+
+    /**
+     * Takes back the last move.
+     */
+    public void undo() {
+        history.undo();
+        positionChanged();
+    }
+
+    /**
+     * Replays the last taken back move.
+     */
+    public void redo() {
+        history.redo();
+        positionChanged();
+    }
+
+    /**
+     * Moves the game to the position after the given number of plies.
+     * @param ply the ply to jump to, between 0 and getHistoryLength()
+     */
+    public void jumpTo(int ply) {
+        history.jumpTo(ply);
+        positionChanged();
+    }
+
+    /**
+     * @return the number of moves played to reach the current position
+     */
+    public int getPly() {
+        return history.getPly();
+    }
+
+    /**
+     * @return the number of recorded moves, including taken back ones
+     */
+    public int getHistoryLength() {
+        return history.getLength();
+    }
+
+    /**
+     * Refreshes scores and turn after the history moved the board, and notifies listeners.
+     * The human moves first, so it is the human's turn after an even number of plies.
+     */
+    private void positionChanged() {
+        position = board.snapshot();
+        updatePlayersScores();
+        isHumanTurn = history.getPly() % 2 == 0;
+        for (GameListener listener : listeners) {
+            listener.onPositionChanged(isHumanTurn);
+        }
+    }
+
+    /**
+     * Returns the current position. Positions are immutable, so the result can be read from any
+     * thread, and kept, without copying or locking.
+     * O(1)
+     *
+     * @return the position after the last applied, taken back or replayed move
+     */
+    public Position getPosition() {
+        return position;
+    }
+
+    /**
+     * @return the current Board instance, which only the game thread may use
      */
     public Board getBoard() {
         return board;
@@ -72,23 +336,22 @@ public class GameManager {
     }
 
     /**
-     * Switches the turn between human and AI.
+     * Switches the turn between human and AI and notifies listeners.
      */
     public void switchTurn() {
         isHumanTurn = !isHumanTurn;
+        for (GameListener listener : listeners) {
+            listener.onTurnChanged(isHumanTurn);
+        }
     }
 
     /**
-     * Updates the scores for both players by counting their balls on the board.
+     * Updates the scores for both players from the board's piece counters.
+     * O(1)
      */
     public void updatePlayersScores() {
-        int humanCount  = 0, aiCount  = 0;
-        for (Player p : board.getPositionsMap().values()) {
-            if (p.getName().equals(humanPlayer.getName())) humanCount++;
-            if (p.getName().equals(aiPlayer.getName())) aiCount++;
-        }
-        this.humanScore = humanCount;
-        this.aiScore = aiCount;
+        this.humanScore = board.getMarbleCount(humanPlayer);
+        this.aiScore = board.getMarbleCount(aiPlayer);
     }
 
     /**
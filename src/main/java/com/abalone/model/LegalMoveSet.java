@@ -0,0 +1,196 @@
+package com.abalone.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.abalone.model.utils.Move;
+
+/**
+ * The legal moves of both sides, kept up to date as pieces move.
+ *
+ * Every move that can exist on the board has a slot: one per (cell, direction) for in-line moves
+ * and one per (line, direction) for broadside moves, in the order MoveGenerator emits them. A slot
+ * depends on the cells whose occupancy decides its legality (the ray in front of an in-line group,
+ * or the line and its destinations), so after a move only the slots depending on a changed cell are
+ * checked again. Each side keeps a bitset of its legal slots and their count, which makes mobility
+ * an O(1) read.
+ */
+final class LegalMoveSet {
+    private static final int SLOTS;
+    /** Packed move (Move.encode) of each slot. */
+    private static final int[] SLOT_MOVES;
+    private static final int[] SLOT_FROM;
+    private static final int[] SLOT_DIRECTION;
+    /** Cells of a broadside group, 0 for in-line slots. */
+    private static final long[] SLOT_LINES;
+    /** Destinations of a broadside group. */
+    private static final long[] SLOT_TARGETS;
+    /** DEPENDENTS[cell], the slots whose legality depends on the cell. */
+    private static final int[][] DEPENDENTS;
+
+    static {
+        List<int[]> slots = new ArrayList<>(); // {move, from, direction}
+        List<long[]> masks = new ArrayList<>(); // {line, target, dependencies}
+        int[] everyMove = new int[MoveGenerator.MAX_MOVES];
+        for (int cell = 0; cell < MoveGenerator.CELLS; cell++) {
+            // With every other cell empty, a lone piece or line can make every move it will ever make.
+            for (int d = 0; d < MoveGenerator.DIRECTIONS; d++) {
+                if (MoveGenerator.neighbor(cell, d) == -1) {
+                    continue;
+                }
+                long ray = 1L << cell;
+                for (int next = MoveGenerator.neighbor(cell, d), k = 0; next != -1 && k < 5; next = MoveGenerator.neighbor(next, d), k++) {
+                    ray |= 1L << next;
+                }
+                slots.add(new int[]{cell | MoveGenerator.neighbor(cell, d) << 6, cell, d});
+                masks.add(new long[]{0, 0, ray});
+            }
+            for (int length = 2; length <= 3; length++) {
+                for (int axis : new int[]{0, 2, 5}) {
+                    long line = 0;
+                    int end = cell;
+                    for (int k = 0; k < length && end != -1; k++) {
+                        line |= 1L << end;
+                        if (k < length - 1) {
+                            end = MoveGenerator.neighbor(end, axis);
+                        }
+                    }
+                    if (end == -1) {
+                        continue;
+                    }
+                    int count = MoveGenerator.generate(line, 0, everyMove);
+                    for (int i = 0; i < count; i++) {
+                        int move = everyMove[i];
+                        if ((move & 0x3F) != cell || (move >>> 12) - 1 != end) {
+                            continue;
+                        }
+                        int direction = MoveGenerator.direction(cell, (move >>> 6) & 0x3F);
+                        long target = 0;
+                        for (long m = line; m != 0; m &= m - 1) {
+                            target |= 1L << MoveGenerator.neighbor(Long.numberOfTrailingZeros(m), direction);
+                        }
+                        slots.add(new int[]{move, cell, direction});
+                        masks.add(new long[]{line, target, line | target});
+                    }
+                }
+            }
+        }
+        SLOTS = slots.size();
+        SLOT_MOVES = new int[SLOTS];
+        SLOT_FROM = new int[SLOTS];
+        SLOT_DIRECTION = new int[SLOTS];
+        SLOT_LINES = new long[SLOTS];
+        SLOT_TARGETS = new long[SLOTS];
+        int[] dependentCounts = new int[MoveGenerator.CELLS];
+        for (int s = 0; s < SLOTS; s++) {
+            SLOT_MOVES[s] = slots.get(s)[0];
+            SLOT_FROM[s] = slots.get(s)[1];
+            SLOT_DIRECTION[s] = slots.get(s)[2];
+            SLOT_LINES[s] = masks.get(s)[0];
+            SLOT_TARGETS[s] = masks.get(s)[1];
+            for (long m = masks.get(s)[2]; m != 0; m &= m - 1) {
+                dependentCounts[Long.numberOfTrailingZeros(m)]++;
+            }
+        }
+        DEPENDENTS = new int[MoveGenerator.CELLS][];
+        for (int cell = 0; cell < MoveGenerator.CELLS; cell++) {
+            DEPENDENTS[cell] = new int[dependentCounts[cell]];
+            dependentCounts[cell] = 0;
+        }
+        for (int s = 0; s < SLOTS; s++) {
+            for (long m = masks.get(s)[2]; m != 0; m &= m - 1) {
+                int cell = Long.numberOfTrailingZeros(m);
+                DEPENDENTS[cell][dependentCounts[cell]++] = s;
+            }
+        }
+    }
+
+    private final long[] aiLegal;
+    private final long[] humanLegal;
+    private int aiCount;
+    private int humanCount;
+
+    /**
+     * Builds the legal moves of a position.
+     * O(s) where s is the number of slots.
+     */
+    LegalMoveSet(long aiMask, long humanMask) {
+        aiLegal = new long[(SLOTS + 63) / 64];
+        humanLegal = new long[(SLOTS + 63) / 64];
+        for (int s = 0; s < SLOTS; s++) {
+            refresh(s, aiMask, humanMask);
+        }
+    }
+
+    LegalMoveSet(LegalMoveSet other) {
+        aiLegal = other.aiLegal.clone();
+        humanLegal = other.humanLegal.clone();
+        aiCount = other.aiCount;
+        humanCount = other.humanCount;
+    }
+
+    /**
+     * Checks again the slots that depend on the changed cells.
+     * O(c) where c is the number of changed cells.
+     *
+     * @param aiMask the AI pieces after the change
+     * @param humanMask the human pieces after the change
+     * @param changed the cells whose occupant changed
+     */
+    void update(long aiMask, long humanMask, long changed) {
+        while (changed != 0) {
+            for (int s : DEPENDENTS[Long.numberOfTrailingZeros(changed)]) {
+                refresh(s, aiMask, humanMask);
+            }
+            changed &= changed - 1;
+        }
+    }
+
+    private void refresh(int s, long aiMask, long humanMask) {
+        long bit = 1L << s;
+        int word = s >>> 6;
+        boolean ai = isLegal(s, aiMask, humanMask);
+        if (ai != ((aiLegal[word] & bit) != 0)) {
+            aiLegal[word] ^= bit;
+            aiCount += ai ? 1 : -1;
+        }
+        boolean human = isLegal(s, humanMask, aiMask);
+        if (human != ((humanLegal[word] & bit) != 0)) {
+            humanLegal[word] ^= bit;
+            humanCount += human ? 1 : -1;
+        }
+    }
+
+    private static boolean isLegal(int s, long own, long opponent) {
+        long line = SLOT_LINES[s];
+        if (line == 0) {
+            return MoveGenerator.inlineMoverCount(own, opponent, SLOT_FROM[s], SLOT_DIRECTION[s]) > 0;
+        }
+        return (line & ~own) == 0 && (SLOT_TARGETS[s] & (own | opponent)) == 0;
+    }
+
+    /**
+     * O(1)
+     *
+     * @param ai true for the AI side
+     * @return the number of legal moves of the side
+     */
+    int count(boolean ai) {
+        return ai ? aiCount : humanCount;
+    }
+
+    /**
+     * @param ai true for the AI side
+     * @return the legal moves of the side, in MoveGenerator order
+     */
+    List<Move> moves(boolean ai) {
+        long[] legal = ai ? aiLegal : humanLegal;
+        List<Move> moves = new ArrayList<>(ai ? aiCount : humanCount);
+        for (int word = 0; word < legal.length; word++) {
+            for (long bits = legal[word]; bits != 0; bits &= bits - 1) {
+                moves.add(Move.decode(SLOT_MOVES[word << 6 | Long.numberOfTrailingZeros(bits)]));
+            }
+        }
+        return moves;
+    }
+}
@@ -0,0 +1,317 @@
+package com.abalone.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.abalone.model.utils.Move;
+
+/**
+ * Generates and checks moves from occupancy masks with precomputed tables of the 61-cell board.
+ *
+ * RAYS walk at most five cells from a cell in each direction, which covers a group of three
+ * pushing two opponent pieces. Every 2- and 3-cell line is stored as a mask together with the
+ * masks of its four broadside destinations, so a broadside move costs two mask tests.
+ * Cell indexes and direction indexes are the ones of Board.
+ */
+public final class MoveGenerator {
+    public static final int CELLS = 61;
+    public static final int DIRECTIONS = 6;
+    /** More than the number of legal moves of any position. */
+    public static final int MAX_MOVES = 512;
+    public static final long ALL_CELLS = (1L << CELLS) - 1;
+
+    private static final int[][] DIRECTION_VECTORS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, -1}, {-1, 1}};
+    /** The directions 0, 2 and 5 name the three line axes; cell indexes grow along each of them. */
+    private static final int[] AXES = {0, 2, 5};
+    private static final int RAY_LENGTH = 5;
+
+    /** NEIGHBORS[cell][direction], -1 if off board. */
+    private static final int[][] NEIGHBORS = new int[CELLS][DIRECTIONS];
+    /** RAYS[cell][direction][k] is the cell k + 1 steps away, -1 once off board. */
+    private static final int[][][] RAYS = new int[CELLS][DIRECTIONS][RAY_LENGTH];
+    /** LINES[length - 2][cell][axis], the cells of the line starting at cell, 0 if it leaves the board. */
+    private static final long[][][] LINES = new long[2][CELLS][AXES.length];
+    /** LINE_ENDS[length - 2][cell][axis], the last cell of the line. */
+    private static final int[][][] LINE_ENDS = new int[2][CELLS][AXES.length];
+    /** SIDESTEPS[length - 2][cell][axis][direction], the cells the line moves to, 0 if not a broadside. */
+    private static final long[][][][] SIDESTEPS = new long[2][CELLS][AXES.length][DIRECTIONS];
+
+    static {
+        int[][] coords = new int[CELLS][];
+        int index = 0;
+        for (int r = -4; r <= 4; r++) {
+            for (int q = Math.max(-4, -r - 4); q <= Math.min(4, -r + 4); q++) {
+                coords[index++] = new int[]{q, r};
+            }
+        }
+        for (int cell = 0; cell < CELLS; cell++) {
+            for (int d = 0; d < DIRECTIONS; d++) {
+                NEIGHBORS[cell][d] = find(coords, coords[cell][0] + DIRECTION_VECTORS[d][0], coords[cell][1] + DIRECTION_VECTORS[d][1]);
+            }
+        }
+        for (int cell = 0; cell < CELLS; cell++) {
+            for (int d = 0; d < DIRECTIONS; d++) {
+                int current = cell;
+                for (int k = 0; k < RAY_LENGTH; k++) {
+                    current = current == -1 ? -1 : NEIGHBORS[current][d];
+                    RAYS[cell][d][k] = current;
+                }
+            }
+            for (int a = 0; a < AXES.length; a++) {
+                int[] ray = RAYS[cell][AXES[a]];
+                for (int length = 2; length <= 3; length++) {
+                    int end = ray[length - 2];
+                    if (end == -1) {
+                        continue;
+                    }
+                    long line = 1L << cell;
+                    for (int k = 0; k < length - 1; k++) {
+                        line |= 1L << ray[k];
+                    }
+                    LINES[length - 2][cell][a] = line;
+                    LINE_ENDS[length - 2][cell][a] = end;
+                    for (int d = 0; d < DIRECTIONS; d++) {
+                        if (d == AXES[a] || d == opposite(AXES[a])) {
+                            continue;
+                        }
+                        long target = 0;
+                        for (long m = line; m != 0; m &= m - 1) {
+                            int next = NEIGHBORS[Long.numberOfTrailingZeros(m)][d];
+                            if (next == -1) {
+                                target = 0;
+                                break;
+                            }
+                            target |= 1L << next;
+                        }
+                        SIDESTEPS[length - 2][cell][a][d] = target;
+                    }
+                }
+            }
+        }
+    }
+
+    private MoveGenerator() {
+    }
+
+    private static int find(int[][] coords, int q, int r) {
+        for (int i = 0; i < coords.length; i++) {
+            if (coords[i][0] == q && coords[i][1] == r) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param direction a direction index
+     * @return the index of the opposite direction
+     */
+    public static int opposite(int direction) {
+        return direction ^ 1;
+    }
+
+    /**
+     * O(1)
+     *
+     * @param from a cell
+     * @param to another cell
+     * @return the direction index of the step from -> to, or -1 if the cells are not neighbors
+     */
+    public static int direction(int from, int to) {
+        int[] neighbors = NEIGHBORS[from];
+        for (int d = 0; d < DIRECTIONS; d++) {
+            if (neighbors[d] == to) {
+                return d;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Writes the packed legal moves (see Move.encode) of the side owning own.
+     * O(n) where n is the number of own pieces.
+     *
+     * @param own pieces of the side to move
+     * @param opponent pieces of the other side
+     * @param out receives the moves, at least MAX_MOVES long
+     * @return the number of moves written
+     */
+    public static int generate(long own, long opponent, int[] out) {
+        long occupied = own | opponent;
+        int count = 0;
+        for (long pieces = own; pieces != 0; pieces &= pieces - 1) {
+            int cell = Long.numberOfTrailingZeros(pieces);
+            for (int d = 0; d < DIRECTIONS; d++) {
+                if (inlineMoverCount(own, opponent, cell, d) > 0) {
+                    out[count++] = cell | NEIGHBORS[cell][d] << 6;
+                }
+            }
+            for (int length = 0; length < 2; length++) {
+                for (int a = 0; a < AXES.length; a++) {
+                    long line = LINES[length][cell][a];
+                    if (line == 0 || (line & ~own) != 0) {
+                        continue;
+                    }
+                    long[] sidesteps = SIDESTEPS[length][cell][a];
+                    for (int d = 0; d < DIRECTIONS; d++) {
+                        if (sidesteps[d] != 0 && (sidesteps[d] & occupied) == 0) {
+                            out[count++] = cell | NEIGHBORS[cell][d] << 6 | (LINE_ENDS[length][cell][a] + 1) << 12;
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param own pieces of the side to move
+     * @param opponent pieces of the other side
+     * @return the legal moves of the side owning own
+     */
+    public static List<Move> generateMoves(long own, long opponent) {
+        int[] codes = new int[MAX_MOVES];
+        int count = generate(own, opponent, codes);
+        List<Move> moves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            moves.add(Move.decode(codes[i]));
+        }
+        return moves;
+    }
+
+    /**
+     * Checks an in-line move of the group starting at from.
+     * O(1)
+     *
+     * @param own pieces of the side owning from
+     * @param opponent pieces of the other side
+     * @param from the rear cell of the group
+     * @param direction the direction index of the move
+     * @return the size of the moving group if the move is legal, 0 otherwise
+     */
+    public static int inlineMoverCount(long own, long opponent, int from, int direction) {
+        if ((own & (1L << from)) == 0) {
+            return 0;
+        }
+        int[] ray = RAYS[from][direction];
+        int movers = 1;
+        int k = 0;
+        while (k < 3 && ray[k] != -1 && (own & (1L << ray[k])) != 0) {
+            movers++;
+            k++;
+        }
+        // ray[k] is the first cell in front of the group.
+        if (movers > 3 || ray[k] == -1) {
+            return 0;
+        }
+        long front = 1L << ray[k];
+        if ((own & front) != 0) {
+            return 0;
+        }
+        if ((opponent & front) == 0) {
+            return movers;
+        }
+        int pushed = 0;
+        while (k < RAY_LENGTH && ray[k] != -1 && (opponent & (1L << ray[k])) != 0) {
+            pushed++;
+            k++;
+        }
+        if (pushed >= movers) {
+            return 0;
+        }
+        // The pushed line must end at the edge or at an empty cell.
+        return k >= RAY_LENGTH || ray[k] == -1 || (own & (1L << ray[k])) == 0 ? movers : 0;
+    }
+
+    /**
+     * Counts the opponent pieces pushed by a legal in-line move.
+     * O(1)
+     *
+     * @param own pieces of the side owning from
+     * @param opponent pieces of the other side
+     * @param from the rear cell of the group
+     * @param direction the direction index of the move
+     * @return the number of opponent pieces in front of the group
+     */
+    public static int pushedCount(long own, long opponent, int from, int direction) {
+        int[] ray = RAYS[from][direction];
+        int k = 0;
+        while (ray[k] != -1 && (own & (1L << ray[k])) != 0) {
+            k++;
+        }
+        int pushed = 0;
+        while (k < RAY_LENGTH && ray[k] != -1 && (opponent & (1L << ray[k])) != 0) {
+            pushed++;
+            k++;
+        }
+        return pushed;
+    }
+
+    /**
+     * Checks a broadside move of the line from..groupEnd.
+     * O(1)
+     *
+     * @param own pieces of the side owning the group
+     * @param opponent pieces of the other side
+     * @param from one end of the group
+     * @param direction the direction index of the move
+     * @param groupEnd the other end of the group
+     * @return true if the group is a line of 2 or 3 own pieces and every destination is empty
+     */
+    public static boolean isLegalBroadside(long own, long opponent, int from, int direction, int groupEnd) {
+        int rear = Math.min(from, groupEnd);
+        int front = Math.max(from, groupEnd);
+        // Cell indexes grow along every axis, so a line is stored from its lowest cell.
+        for (int length = 0; length < 2; length++) {
+            for (int a = 0; a < AXES.length; a++) {
+                if (LINE_ENDS[length][rear][a] == front && LINES[length][rear][a] != 0) {
+                    long target = SIDESTEPS[length][rear][a][direction];
+                    return (LINES[length][rear][a] & ~own) == 0 && target != 0 && (target & (own | opponent)) == 0;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param from one end of a line
+     * @param groupEnd the other end
+     * @return the direction index from from towards groupEnd, or -1 if they are not on a 2- or 3-cell line
+     */
+    public static int lineDirection(int from, int groupEnd) {
+        for (int d = 0; d < DIRECTIONS; d++) {
+            if (RAYS[from][d][0] == groupEnd || RAYS[from][d][1] == groupEnd) {
+                return d;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param from one end of a line
+     * @param groupEnd the other end
+     * @return the number of cells of the line from..groupEnd, or 0 if it is not a 2- or 3-cell line
+     */
+    public static int lineLength(int from, int groupEnd) {
+        for (int d = 0; d < DIRECTIONS; d++) {
+            if (RAYS[from][d][0] == groupEnd) {
+                return 2;
+            }
+            if (RAYS[from][d][1] == groupEnd) {
+                return 3;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * O(1)
+     *
+     * @param cell the cell index
+     * @param direction the direction index
+     * @return the neighbor of the cell in that direction, or -1 if off board
+     */
+    public static int neighbor(int cell, int direction) {
+        return NEIGHBORS[cell][direction];
+    }
+}
@@ -0,0 +1,175 @@
+package com.abalone.model;
+
+import java.util.Arrays;
+
+import com.abalone.model.utils.Move;
+import com.abalone.model.utils.MoveDelta;
+
+/**
+ * Move history of a game stored as one MoveDelta int per ply, plus the two occupancy masks
+ * of every SNAPSHOT_INTERVAL-th position.
+ * Undo and redo reverse or replay one delta. Jumping to any ply restores the nearest
+ * snapshot at or before it and replays at most SNAPSHOT_INTERVAL - 1 deltas.
+ */
+public class MoveHistory {
+    public static final int SNAPSHOT_INTERVAL = 32;
+
+    private final Board board;
+    private int[] deltas = new int[64];
+    private long[] snapshots = new long[8]; // AI mask and human mask of the position at ply i * SNAPSHOT_INTERVAL
+    private int ply;     // number of moves currently applied
+    private int length;  // number of recorded moves, larger than ply after an undo
+
+    /**
+     * Creates a history whose ply 0 is the current position of the board.
+     *
+     * @param board the board the history applies to
+     */
+    public MoveHistory(Board board) {
+        this.board = board;
+        snapshots[0] = board.getOccupancyMask(board.getAIPlayer());
+        snapshots[1] = board.getOccupancyMask(board.getHumanPlayer());
+    }
+
+    /**
+     * Records a move that has just been applied. Any moves that could have been redone are discarded.
+     *
+     * @param delta the MoveDelta returned by Board.applyMove, or MoveDelta.PASS
+     */
+    public void record(int delta) {
+        if (ply == deltas.length) {
+            deltas = Arrays.copyOf(deltas, deltas.length * 2);
+        }
+        deltas[ply++] = delta;
+        length = ply;
+        if (ply % SNAPSHOT_INTERVAL == 0) {
+            int index = 2 * (ply / SNAPSHOT_INTERVAL);
+            if (index + 1 >= snapshots.length) {
+                snapshots = Arrays.copyOf(snapshots, snapshots.length * 2);
+            }
+            snapshots[index] = board.getOccupancyMask(board.getAIPlayer());
+            snapshots[index + 1] = board.getOccupancyMask(board.getHumanPlayer());
+        }
+    }
+
+    /**
+     * Copies the recorded moves into a compact array: the current ply, then one MoveDelta per
+     * recorded move. Together with the current position it is all restore needs.
+     * O(n) where n is the number of recorded moves.
+     *
+     * @return {ply, delta 0, ..., delta length - 1}
+     */
+    public int[] toArray() {
+        int[] record = new int[length + 1];
+        record[0] = ply;
+        System.arraycopy(deltas, 0, record, 1, length);
+        return record;
+    }
+
+    /**
+     * Rebuilds a history from toArray. The board must hold the position at the recorded ply; it
+     * is walked back to ply 0 and forward again to rebuild the snapshots, and left where it was.
+     * O(n) where n is the number of recorded moves.
+     *
+     * @param board the board, at the recorded ply
+     * @param record the array returned by toArray
+     * @return the restored history
+     */
+    public static MoveHistory restore(Board board, int[] record) {
+        int recordedPly = record[0];
+        for (int i = recordedPly; i > 0; i--) {
+            board.undoMove(record[i]);
+        }
+        MoveHistory history = new MoveHistory(board);
+        for (int i = 1; i < record.length; i++) {
+            int delta = record[i];
+            if (delta != MoveDelta.PASS) {
+                board.applyMove(history.toMove(delta));
+            }
+            history.record(delta);
+        }
+        history.jumpTo(recordedPly);
+        return history;
+    }
+
+    public boolean canUndo() {
+        return ply > 0;
+    }
+
+    public boolean canRedo() {
+        return ply < length;
+    }
+
+    /**
+     * Takes back the last applied move.
+     * O(1)
+     */
+    public void undo() {
+        board.undoMove(deltas[--ply]);
+    }
+
+    /**
+     * Replays the next undone move.
+     * O(1)
+     */
+    public void redo() {
+        int delta = deltas[ply++];
+        if (delta != MoveDelta.PASS) {
+            board.applyMove(toMove(delta));
+        }
+    }
+
+    /**
+     * Moves the board to the position after the given number of plies.
+     *
+     * @param target the ply to jump to, between 0 and getLength()
+     */
+    public void jumpTo(int target) {
+        if (target < 0 || target > length) {
+            throw new IllegalArgumentException("Ply " + target + " is outside 0.." + length);
+        }
+        int snapshotPly = target - target % SNAPSHOT_INTERVAL;
+        if (Math.abs(target - ply) > target - snapshotPly) {
+            int index = 2 * (snapshotPly / SNAPSHOT_INTERVAL);
+            board.setPosition(snapshots[index], snapshots[index + 1]);
+            ply = snapshotPly;
+        }
+        while (ply > target) {
+            undo();
+        }
+        while (ply < target) {
+            redo();
+        }
+    }
+
+    /**
+     * @return the number of moves currently applied
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * @return the number of recorded moves, including undone ones
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @param delta a recorded MoveDelta
+     * @return the move that produced it
+     */
+    private Move toMove(int delta) {
+        int from = MoveDelta.from(delta);
+        int to = board.getNeighbor(from, MoveDelta.direction(delta));
+        if (!MoveDelta.broadside(delta)) {
+            return new Move(from, to);
+        }
+        int groupEnd = from;
+        for (int k = 1; k < MoveDelta.moverCount(delta); k++) {
+            groupEnd = board.getNeighbor(groupEnd, MoveDelta.axis(delta));
+        }
+        return new Move(from, to, groupEnd);
+    }
+}
@@ -0,0 +1,177 @@
+package com.abalone.model;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.abalone.model.utils.Move;
+import com.abalone.model.utils.Trace;
+import com.abalone.model.utils.TraceEvent;
+import com.abalone.model.utils.Players.Player;
+
+/**
+ * Read-only opening book, memory-mapped and searched by binary search.
+ *
+ * File layout (little endian):
+ * header - int magic, int version, long recordCount
+ * record - long canonicalKey, byte from, byte to, byte groupEnd + 1 (0 for in-line moves),
+ *          byte reserved, int weight
+ * Version 1 books, written before broadside moves, use 12-byte records of
+ * long canonicalKey, byte from, byte to, short weight (unsigned) and are still read.
+ *
+ * Records are sorted by key, then by descending weight. Keys and moves are stored in the
+ * canonical frame of BoardSymmetry, so one entry covers every symmetric image of a position.
+ * Books are shared by all games in the process and use no heap beyond the mapping.
+ */
+public class OpeningBook {
+    /** System property naming the book file used by AIPlayer. */
+    public static final String BOOK_PROPERTY = "abalone.book";
+
+    public static final int MAGIC = 0x4B424241; // "ABBK"
+    public static final int VERSION = 2;
+    public static final int HEADER_SIZE = 16;
+    public static final int RECORD_SIZE = 16;
+    private static final int VERSION_1_RECORD_SIZE = 12;
+
+    private static final Map<Path, OpeningBook> OPEN_BOOKS = new ConcurrentHashMap<>();
+
+    private final MappedByteBuffer buffer;
+    private final int size;
+    private final int recordSize;
+
+    private OpeningBook(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC
+                || buffer.getInt(4) != VERSION && buffer.getInt(4) != 1) {
+            throw new IOException("Not an opening book: " + path);
+        }
+        recordSize = buffer.getInt(4) == 1 ? VERSION_1_RECORD_SIZE : RECORD_SIZE;
+        size = (int) Math.min(buffer.getLong(8), (buffer.capacity() - HEADER_SIZE) / recordSize);
+    }
+
+    /**
+     * Returns the book for the given file, mapping it on first use.
+     *
+     * @param path the book file
+     * @return the shared book instance
+     * @throws IOException if the file cannot be mapped
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        Path key = path.toAbsolutePath().normalize();
+        OpeningBook book = OPEN_BOOKS.get(key);
+        if (book == null) {
+            book = new OpeningBook(key);
+            OpeningBook existing = OPEN_BOOKS.putIfAbsent(key, book);
+            if (existing != null) {
+                book = existing;
+            }
+        }
+        return book;
+    }
+
+    /**
+     * Returns the book named by the abalone.book system property.
+     *
+     * @return the configured book, or null if none is configured or it cannot be read
+     */
+    public static OpeningBook configured() {
+        String path = System.getProperty(BOOK_PROPERTY);
+        if (path == null) {
+            return null;
+        }
+        try {
+            return open(Paths.get(path));
+        } catch (IOException e) {
+            Trace.log(TraceEvent.BOOK_OPEN_FAILED);
+            return null;
+        }
+    }
+
+    /**
+     * Finds the book move with the highest weight for the position.
+     * O(log n) where n is the number of records.
+     *
+     * @param board the current board
+     * @param toMove the player to move
+     * @return the book move, or null if the position is not in the book
+     */
+    public Move lookup(Board board, Player toMove) {
+        int record = find(board.getCanonicalKey(toMove));
+        if (record < 0) {
+            return null;
+        }
+        // The canonical move is mapped back into the frame of this board.
+        int inverse = BoardSymmetry.inverse(board.getCanonicalTransform(toMove));
+        Move move = BoardSymmetry.transformMove(inverse, new Move(fromAt(record), toAt(record), groupEndAt(record)));
+        Player owner = board.getPlayerAt(move.getFrom());
+        // Guards against hash collisions.
+        if (owner == null || !owner.getName().equals(toMove.getName()) || !board.isValidMove(move)) {
+            return null;
+        }
+        return move;
+    }
+
+    /**
+     * @param key a canonical key
+     * @return the first record with that key, or -1 if there is none
+     */
+    private int find(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keyAt(mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < size && keyAt(low) == key ? low : -1;
+    }
+
+    /**
+     * @return the number of records in the book
+     */
+    public int size() {
+        return size;
+    }
+
+    public long keyAt(int record) {
+        return buffer.getLong(HEADER_SIZE + record * recordSize);
+    }
+
+    public int fromAt(int record) {
+        return buffer.get(HEADER_SIZE + record * recordSize + 8);
+    }
+
+    public int toAt(int record) {
+        return buffer.get(HEADER_SIZE + record * recordSize + 9);
+    }
+
+    /**
+     * @param record the record index
+     * @return the other end of a broadside group, or -1 for an in-line move
+     */
+    public int groupEndAt(int record) {
+        if (recordSize == VERSION_1_RECORD_SIZE) {
+            return -1;
+        }
+        return buffer.get(HEADER_SIZE + record * recordSize + 10) - 1;
+    }
+
+    public int weightAt(int record) {
+        if (recordSize == VERSION_1_RECORD_SIZE) {
+            return buffer.getShort(HEADER_SIZE + record * recordSize + 10) & 0xFFFF;
+        }
+        return buffer.getInt(HEADER_SIZE + record * recordSize + 12);
+    }
+}
@@ -0,0 +1,162 @@
+package com.abalone.model;
+
+import java.util.List;
+
+import com.abalone.model.utils.Move;
+
+/**
+ * Immutable board position: the occupancy masks of both players, where bit i is set when cell i
+ * holds a piece of that player.
+ *
+ * A Position is two longs, so taking one from a Board is O(1) and it can be shared with any
+ * thread without copying or locking. Applying a move returns a new Position and leaves this one
+ * unchanged, so analysis, rendering and history can all keep the positions they were given.
+ */
+public final class Position {
+    private final long aiMask;
+    private final long humanMask;
+
+    /**
+     * @param aiMask occupancy mask of the AI pieces
+     * @param humanMask occupancy mask of the human pieces
+     */
+    public Position(long aiMask, long humanMask) {
+        this.aiMask = aiMask;
+        this.humanMask = humanMask;
+    }
+
+    public long getAIMask() {
+        return aiMask;
+    }
+
+    public long getHumanMask() {
+        return humanMask;
+    }
+
+    public boolean isAI(int cell) {
+        return (aiMask & 1L << cell) != 0;
+    }
+
+    public boolean isHuman(int cell) {
+        return (humanMask & 1L << cell) != 0;
+    }
+
+    public boolean isEmpty(int cell) {
+        return ((aiMask | humanMask) & 1L << cell) == 0;
+    }
+
+    /**
+     * @param ai true for the AI
+     * @return the number of pieces the player has on the board
+     */
+    public int getMarbleCount(boolean ai) {
+        return Long.bitCount(ai ? aiMask : humanMask);
+    }
+
+    /**
+     * @return true if either player has 8 or fewer pieces
+     */
+    public boolean isGameOver() {
+        return Long.bitCount(aiMask) <= 8 || Long.bitCount(humanMask) <= 8;
+    }
+
+    /**
+     * Checks if a move is valid for the owner of its from cell.
+     * O(1)
+     *
+     * @param move the move to validate
+     * @return true if the move is valid
+     */
+    public boolean isValidMove(Move move) {
+        int from = move.getFrom();
+        if (from < 0 || from >= 61 || move.getTo() < 0 || move.getTo() >= 61 || isEmpty(from)) {
+            return false;
+        }
+        int direction = MoveGenerator.direction(from, move.getTo());
+        if (direction == -1) {
+            return false;
+        }
+        long own = isAI(from) ? aiMask : humanMask;
+        long opponent = isAI(from) ? humanMask : aiMask;
+        if (move.isBroadside()) {
+            int groupEnd = move.getGroupEnd();
+            return groupEnd >= 0 && groupEnd < 61
+                    && MoveGenerator.isLegalBroadside(own, opponent, from, direction, groupEnd);
+        }
+        return MoveGenerator.inlineMoverCount(own, opponent, from, direction) > 0;
+    }
+
+    /**
+     * Returns the position after a valid move. This position is not changed.
+     * O(1)
+     *
+     * @param move a valid move
+     * @return the new position
+     */
+    public Position apply(Move move) {
+        int from = move.getFrom();
+        int direction = MoveGenerator.direction(from, move.getTo());
+        boolean ai = isAI(from);
+        long own = ai ? aiMask : humanMask;
+        long opponent = ai ? humanMask : aiMask;
+        if (move.isBroadside()) {
+            int axis = MoveGenerator.lineDirection(from, move.getGroupEnd());
+            int cell = from;
+            long moved = own;
+            for (int k = MoveGenerator.lineLength(from, move.getGroupEnd()); k > 0; k--) {
+                moved = moved & ~(1L << cell) | 1L << MoveGenerator.neighbor(cell, direction);
+                cell = MoveGenerator.neighbor(cell, axis);
+            }
+            return ai ? new Position(moved, opponent) : new Position(opponent, moved);
+        }
+        // The line shifts one cell: its rear cell empties and the cell in front of each group fills.
+        int moverCount = MoveGenerator.inlineMoverCount(own, opponent, from, direction);
+        int pushedCount = MoveGenerator.pushedCount(own, opponent, from, direction);
+        int front = from;
+        for (int k = 0; k < moverCount; k++) {
+            front = MoveGenerator.neighbor(front, direction);
+        }
+        own = own & ~(1L << from) | 1L << front;
+        if (pushedCount > 0) {
+            int pushedFront = front;
+            for (int k = 0; k < pushedCount && pushedFront != -1; k++) {
+                pushedFront = MoveGenerator.neighbor(pushedFront, direction);
+            }
+            // front now holds a mover; the last pushed piece either lands on pushedFront or leaves the board.
+            opponent &= ~(1L << front);
+            if (pushedFront != -1) {
+                opponent |= 1L << pushedFront;
+            }
+        }
+        return ai ? new Position(own, opponent) : new Position(opponent, own);
+    }
+
+    /**
+     * O(n) where n is the number of the player's pieces.
+     *
+     * @param ai true for the AI's moves
+     * @return the valid moves of the player
+     */
+    public List<Move> getPossibleMoves(boolean ai) {
+        return ai ? MoveGenerator.generateMoves(aiMask, humanMask) : MoveGenerator.generateMoves(humanMask, aiMask);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Position)) {
+            return false;
+        }
+        Position position = (Position) other;
+        return aiMask == position.aiMask && humanMask == position.humanMask;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(aiMask * 31 + humanMask);
+    }
+
+    @Override
+    public String toString() {
+        return Long.toHexString(aiMask) + " " + Long.toHexString(humanMask);
+    }
+}
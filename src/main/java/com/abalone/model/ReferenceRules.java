@@ -0,0 +1,211 @@
+package com.abalone.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.abalone.model.utils.Move;
+import com.abalone.model.utils.Players.Player;
+
+/**
+ * The move rules written directly over the positions map and axial coordinates of a Board, the
+ * way Board implemented them before the move tables. Slow, but simple enough to trust, so
+ * ShadowValidator uses it as the reference for the table-driven Board methods.
+ */
+final class ReferenceRules {
+    private final Board board;
+    private final Map<Integer, Player> positions;
+
+    /**
+     * @param board the position to check; it is only read
+     */
+    ReferenceRules(Board board) {
+        this.board = board;
+        this.positions = board.getPositions();
+    }
+
+    /**
+     * Checks a move for the owner of its from cell.
+     * O(n) where n is the number of pieces on the board.
+     *
+     * @param move the move to validate
+     * @return true if the move is valid
+     */
+    boolean isValidMove(Move move) {
+        int from = move.getFrom();
+        int to = move.getTo();
+        if (from < 0 || from >= 61 || to < 0 || to >= 61 || !positions.containsKey(from)) {
+            return false;
+        }
+        int[] step = step(from, to);
+        if (step == null) {
+            return false;
+        }
+        if (move.isBroadside()) {
+            return isValidBroadside(from, move.getGroupEnd(), step);
+        }
+
+        List<Integer> group = board.getListOfPiecesInDirection(from, step[0], step[1]);
+        if (group.size() > 3) {
+            return false;
+        }
+        int next = board.getNextCellInDirection(group.get(group.size() - 1), step[0], step[1]);
+        if (next == -1) {
+            return false;
+        }
+        if (!positions.containsKey(next)) {
+            return true;
+        }
+        List<Integer> opponentGroup = board.getListOfPiecesInDirection(next, step[0], step[1]);
+        if (opponentGroup.size() >= group.size()) {
+            return false;
+        }
+        int pushDestination = board.getNextCellInDirection(opponentGroup.get(opponentGroup.size() - 1), step[0], step[1]);
+        return pushDestination == -1 || !positions.containsKey(pushDestination);
+    }
+
+    /**
+     * A broadside move is valid when from and groupEnd bound a line of two or three of the
+     * mover's pieces, the move is not along that line and every cell beside the line is empty.
+     */
+    private boolean isValidBroadside(int from, int groupEnd, int[] step) {
+        if (groupEnd < 0 || groupEnd >= 61 || groupEnd == from) {
+            return false;
+        }
+        int[] fromCoord = board.getIndexToCoord().get(from);
+        int[] endCoord = board.getIndexToCoord().get(groupEnd);
+        int eq = endCoord[0] - fromCoord[0];
+        int er = endCoord[1] - fromCoord[1];
+        int length = Math.max(Math.abs(eq), Math.max(Math.abs(er), Math.abs(eq + er)));
+        if (length > 2 || eq % length != 0 || er % length != 0) {
+            return false;
+        }
+        int[] axis = {eq / length, er / length};
+        if (!isDirection(axis) || axis[0] == step[0] && axis[1] == step[1]
+                || axis[0] == -step[0] && axis[1] == -step[1]) {
+            return false;
+        }
+        Player mover = positions.get(from);
+        int cell = from;
+        for (int k = 0; k <= length; k++) {
+            Player owner = positions.get(cell);
+            if (owner == null || !owner.getName().equals(mover.getName())) {
+                return false;
+            }
+            int destination = board.getNextCellInDirection(cell, step[0], step[1]);
+            if (destination == -1 || positions.containsKey(destination)) {
+                return false;
+            }
+            cell = board.getNextCellInDirection(cell, axis[0], axis[1]);
+        }
+        return true;
+    }
+
+    /**
+     * Plays a valid move on a copy of the positions.
+     * O(n) where n is the number of pieces on the board.
+     *
+     * @param move a valid move
+     * @return {AI mask, human mask} after the move
+     */
+    long[] applyMove(Move move) {
+        Map<Integer, Player> after = new HashMap<>(positions);
+        int from = move.getFrom();
+        int[] step = step(from, move.getTo());
+        List<Integer> moving = new ArrayList<>();
+        if (move.isBroadside()) {
+            int[] fromCoord = board.getIndexToCoord().get(from);
+            int[] endCoord = board.getIndexToCoord().get(move.getGroupEnd());
+            int length = Math.max(Math.abs(endCoord[0] - fromCoord[0]), Math.abs(endCoord[1] - fromCoord[1]));
+            int dq = (endCoord[0] - fromCoord[0]) / length;
+            int dr = (endCoord[1] - fromCoord[1]) / length;
+            for (int k = 0, cell = from; k <= length; k++, cell = board.getNextCellInDirection(cell, dq, dr)) {
+                moving.add(cell);
+            }
+        } else {
+            List<Integer> group = board.getListOfPiecesInDirection(from, step[0], step[1]);
+            moving.addAll(group);
+            int next = board.getNextCellInDirection(group.get(group.size() - 1), step[0], step[1]);
+            if (positions.containsKey(next)) {
+                moving.addAll(board.getListOfPiecesInDirection(next, step[0], step[1]));
+            }
+        }
+        for (int cell : moving) {
+            after.remove(cell);
+        }
+        for (int cell : moving) {
+            int destination = board.getNextCellInDirection(cell, step[0], step[1]);
+            if (destination != -1) {
+                after.put(destination, positions.get(cell));
+            }
+        }
+        return masks(after);
+    }
+
+    /**
+     * Lists every valid move of a player by trying each in-line step and each broadside move
+     * of every line starting at one of the player's pieces.
+     * O(n) where n is the number of pieces on the board.
+     *
+     * @param player the player to move
+     * @return the valid moves, broadside moves named from the lower cell of their line
+     */
+    List<Move> getPossibleMoves(Player player) {
+        List<Move> moves = new ArrayList<>();
+        for (Map.Entry<Integer, Player> entry : positions.entrySet()) {
+            if (!entry.getValue().getName().equals(player.getName())) {
+                continue;
+            }
+            int from = entry.getKey();
+            for (int d = 0; d < 6; d++) {
+                int to = board.getNeighbor(from, d);
+                if (to == -1) {
+                    continue;
+                }
+                Move inline = new Move(from, to);
+                if (isValidMove(inline)) {
+                    moves.add(inline);
+                }
+                for (int axis = 0; axis < 6; axis++) {
+                    for (int end = board.getNeighbor(from, axis), k = 0; end > from && k < 2; end = board.getNeighbor(end, axis), k++) {
+                        Move broadside = new Move(from, to, end);
+                        if (isValidMove(broadside)) {
+                            moves.add(broadside);
+                        }
+                    }
+                }
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * @return the unit step from one cell to its neighbor, or null if they are not neighbors
+     */
+    private int[] step(int from, int to) {
+        int[] fromCoord = board.getIndexToCoord().get(from);
+        int[] toCoord = board.getIndexToCoord().get(to);
+        int[] step = {toCoord[0] - fromCoord[0], toCoord[1] - fromCoord[1]};
+        return isDirection(step) ? step : null;
+    }
+
+    private static boolean isDirection(int[] step) {
+        int dq = step[0];
+        int dr = step[1];
+        return Math.abs(dq) <= 1 && Math.abs(dr) <= 1 && Math.abs(dq + dr) <= 1 && (dq != 0 || dr != 0);
+    }
+
+    private long[] masks(Map<Integer, Player> cells) {
+        long aiMask = 0;
+        long humanMask = 0;
+        for (Map.Entry<Integer, Player> entry : cells.entrySet()) {
+            if (entry.getValue().getName().equals(board.getAIPlayer().getName())) {
+                aiMask |= 1L << entry.getKey();
+            } else {
+                humanMask |= 1L << entry.getKey();
+            }
+        }
+        return new long[]{aiMask, humanMask};
+    }
+}
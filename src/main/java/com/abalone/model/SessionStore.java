@@ -0,0 +1,231 @@
+package com.abalone.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the games of a server and hibernates the idle ones.
+ *
+ * A live session keeps its GameManager, with its Board tables, AIPlayer and StateMachine. When it
+ * has not been used for a while, hibernateIdle packs it into a GameManager snapshot of
+ * SNAPSHOT_SIZE bytes, moves its history into a compact int array stored under the snapshot's
+ * history pointer, and drops the GameManager. The next acquire restores it. Listeners are dropped on
+ * hibernation, so callers register them again after acquire. The AI's game clock, when one is
+ * configured, is kept next to the snapshot, so a restored game carries on with the time it had.
+ *
+ * A caller holds the game from acquire until release, which may span an AI move on another
+ * thread. Sessions held by a caller are never hibernated, so no move is applied to a game that
+ * the store has already packed away.
+ *
+ * Creating a store starts the JIT warm-up when it is configured; isReady stays false until it is done.
+ */
+public class SessionStore {
+    private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+    private final CompletableFuture<Warmup.Report> warmup = Warmup.configured();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final List<int[]> histories = new ArrayList<>(); // history pointer -> MoveHistory.toArray record
+    private final List<Integer> freePointers = new ArrayList<>();
+
+    /**
+     * A game, either live or hibernated.
+     */
+    private static class Session {
+        GameManager game;   // null while hibernated
+        byte[] snapshot;    // null while live
+        int aiMovesPlayed;  // AI clock while hibernated
+        long aiRemainingMillis;
+        int leases;         // callers between acquire and release
+        boolean removed;    // set by remove; a removed session is never restored or hibernated again
+        long lastAccess;
+    }
+
+    /**
+     * @return true once the store can serve games at full speed, that is after the warm-up
+     */
+    public boolean isReady() {
+        return warmup.isDone();
+    }
+
+    /**
+     * @return completes when the store is ready, with the warm-up report or null without warm-up
+     */
+    public CompletableFuture<Warmup.Report> getReadiness() {
+        return warmup;
+    }
+
+    /**
+     * Starts a new game.
+     *
+     * @return the id of the session
+     */
+    public long create() {
+        long id = nextId.getAndIncrement();
+        Session session = new Session();
+        session.game = new GameManager();
+        session.lastAccess = System.nanoTime();
+        sessions.put(id, session);
+        return id;
+    }
+
+    /**
+     * Returns the game of a session, restoring it first if it was hibernated. The session is not
+     * hibernated until the game is handed back with release.
+     * O(n) where n is the number of recorded moves when restoring, O(1) otherwise.
+     *
+     * @param id the session id
+     * @return the game, or null if there is no such session
+     */
+    public GameManager acquire(long id) {
+        Session session = sessions.get(id);
+        if (session == null) {
+            return null;
+        }
+        synchronized (session) {
+            // remove may have run between the lookup and the lock.
+            if (session.removed) {
+                return null;
+            }
+            if (session.game == null) {
+                int pointer = GameManager.historyPointer(session.snapshot);
+                session.game = new GameManager(session.snapshot, releaseHistory(pointer));
+                session.game.restoreAIClock(session.aiMovesPlayed, session.aiRemainingMillis);
+                session.snapshot = null;
+            }
+            session.leases++;
+            session.lastAccess = System.nanoTime();
+            return session.game;
+        }
+    }
+
+    /**
+     * Hands back a game taken with acquire. The idle time of the session starts now.
+     *
+     * @param id the session id
+     */
+    public void release(long id) {
+        Session session = sessions.get(id);
+        if (session != null) {
+            synchronized (session) {
+                if (session.removed) {
+                    return;
+                }
+                if (session.leases > 0) {
+                    session.leases--;
+                }
+                session.lastAccess = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Hibernates every live session that no caller holds and that was not used for the given time.
+     * O(n) where n is the number of sessions.
+     *
+     * @param idleMillis the idle time after which a session is hibernated
+     * @return the number of sessions hibernated
+     */
+    public int hibernateIdle(long idleMillis) {
+        long cutoff = System.nanoTime() - idleMillis * 1_000_000L;
+        int count = 0;
+        for (Session session : sessions.values()) {
+            synchronized (session) {
+                if (!session.removed && session.game != null && session.leases == 0 && session.lastAccess - cutoff <= 0) {
+                    hibernate(session);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Hibernates a session now, whatever its idle time, unless a caller holds it.
+     *
+     * @param id the session id
+     * @return true if the session is hibernated
+     */
+    public boolean hibernate(long id) {
+        Session session = sessions.get(id);
+        if (session == null) {
+            return false;
+        }
+        synchronized (session) {
+            if (session.removed) {
+                return false;
+            }
+            if (session.game != null && session.leases == 0) {
+                hibernate(session);
+            }
+            return session.game == null;
+        }
+    }
+
+    private void hibernate(Session session) {
+        int pointer = storeHistory(session.game.getHistoryRecord());
+        session.snapshot = session.game.toSnapshot(pointer);
+        session.aiMovesPlayed = session.game.getAIMovesPlayed();
+        session.aiRemainingMillis = session.game.getAIRemainingMillis();
+        session.game = null;
+    }
+
+    /**
+     * Ends a session and frees its storage. A game still held by a caller stays usable by that
+     * caller, but the session can no longer be acquired.
+     *
+     * @param id the session id
+     */
+    public void remove(long id) {
+        Session session = sessions.remove(id);
+        if (session != null) {
+            synchronized (session) {
+                // The history pointer is freed exactly once; a later acquire sees the flag instead.
+                session.removed = true;
+                if (session.snapshot != null) {
+                    releaseHistory(GameManager.historyPointer(session.snapshot));
+                }
+                session.snapshot = null;
+                session.game = null;
+            }
+        }
+    }
+
+    /**
+     * @return the number of sessions, live or hibernated
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * @return the number of sessions currently holding a GameManager
+     */
+    public int getLiveCount() {
+        int count = 0;
+        for (Session session : sessions.values()) {
+            synchronized (session) {
+                count += session.game != null ? 1 : 0;
+            }
+        }
+        return count;
+    }
+
+    private synchronized int storeHistory(int[] record) {
+        if (!freePointers.isEmpty()) {
+            int pointer = freePointers.remove(freePointers.size() - 1);
+            histories.set(pointer, record);
+            return pointer;
+        }
+        histories.add(record);
+        return histories.size() - 1;
+    }
+
+    private synchronized int[] releaseHistory(int pointer) {
+        int[] record = histories.set(pointer, null);
+        freePointers.add(pointer);
+        return record;
+    }
+}
@@ -0,0 +1,278 @@
+package com.abalone.model;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.abalone.model.utils.Move;
+import com.abalone.model.utils.Trace;
+import com.abalone.model.utils.TraceEvent;
+import com.abalone.model.utils.Players.Player;
+
+/**
+ * Shadow-mode differential validation of the table-driven Board rules against ReferenceRules.
+ *
+ * Switched on with -Dabalone.shadow=&lt;rate&gt;, the fraction of isValidMove, applyMove and
+ * getPossibleMoves calls to check. Board guards every call with the ENABLED constant, which the
+ * JIT folds away when shadow mode is off, so it then costs nothing. A sampled call copies its
+ * inputs and result as primitives and hands them to a daemon thread, which repeats the call on
+ * ReferenceRules; when that thread falls behind, samples are dropped and counted rather than
+ * slowing the game down. Every divergence is traced and appended, with its position, to the file
+ * named by -Dabalone.shadow.file (shadow-divergences.txt by default), which ShadowReplay reads.
+ *
+ * Record line: check, AI mask and human mask in hex, side ("ai", "human" or "-"), move ("-" for
+ * getPossibleMoves), then the optimized and the reference result.
+ */
+public final class ShadowValidator {
+    public static final double RATE = Double.parseDouble(System.getProperty("abalone.shadow", "0"));
+    public static final boolean ENABLED = RATE > 0;
+
+    /** The Board method a sample was taken from. */
+    public enum Check { VALID, APPLY, MOVES }
+
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final Player AI = new Player("AI");
+    private static final Player HUMAN = new Player("Human");
+
+    private static final AtomicLong checked = new AtomicLong();
+    private static final AtomicLong divergences = new AtomicLong();
+    private static final AtomicLong dropped = new AtomicLong();
+    private static final ThreadPoolExecutor checker = ENABLED ? createChecker() : null;
+    private static final Path file = Paths.get(System.getProperty("abalone.shadow.file", "shadow-divergences.txt"));
+
+    private ShadowValidator() {
+    }
+
+    /**
+     * Samples a call to Board.isValidMove.
+     *
+     * @param aiMask the AI pieces
+     * @param humanMask the human pieces
+     * @param move the checked move
+     * @param valid the optimized result
+     */
+    static void checkValid(long aiMask, long humanMask, Move move, boolean valid) {
+        // Moves off the board cannot be packed; the range check rejects them before any rule is applied.
+        if (sampled() && isOnBoard(move.getFrom()) && isOnBoard(move.getTo())
+                && (!move.isBroadside() || isOnBoard(move.getGroupEnd()))) {
+            submit(new Sample(Check.VALID, aiMask, humanMask, false, move.encode(), valid ? 1 : 0, 0, null));
+        }
+    }
+
+    /**
+     * Samples a call to Board.applyMove.
+     *
+     * @param aiMask the AI pieces before the move
+     * @param humanMask the human pieces before the move
+     * @param move the applied move
+     * @param aiAfter the AI pieces after the optimized move
+     * @param humanAfter the human pieces after the optimized move
+     */
+    static void checkApply(long aiMask, long humanMask, Move move, long aiAfter, long humanAfter) {
+        if (sampled()) {
+            submit(new Sample(Check.APPLY, aiMask, humanMask, false, move.encode(), aiAfter, humanAfter, null));
+        }
+    }
+
+    /**
+     * Samples a call to Board.getPossibleMoves.
+     *
+     * @param aiMask the AI pieces
+     * @param humanMask the human pieces
+     * @param ai true for the AI's moves
+     * @param moves the optimized result
+     */
+    static void checkMoves(long aiMask, long humanMask, boolean ai, List<Move> moves) {
+        if (sampled()) {
+            int[] packed = new int[moves.size()];
+            for (int i = 0; i < packed.length; i++) {
+                packed[i] = moves.get(i).encode();
+            }
+            submit(new Sample(Check.MOVES, aiMask, humanMask, ai, -1, 0, 0, packed));
+        }
+    }
+
+    private static boolean sampled() {
+        return ThreadLocalRandom.current().nextDouble() < RATE;
+    }
+
+    private static boolean isOnBoard(int cell) {
+        return cell >= 0 && cell < 61;
+    }
+
+    private static void submit(Sample sample) {
+        checker.execute(() -> {
+            checked.incrementAndGet();
+            String record = sample.diverge();
+            if (record != null) {
+                int divergence = (int) divergences.incrementAndGet();
+                Trace.log(TraceEvent.SHADOW_DIVERGENCE, divergence, sample.check.ordinal());
+                append(record, divergence);
+            }
+        });
+    }
+
+    private static ThreadPoolExecutor createChecker() {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "abalone-shadow");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                (runnable, executor) -> dropped.incrementAndGet());
+    }
+
+    private static synchronized void append(String record, int divergence) {
+        try {
+            Files.write(file, List.of(record), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            Trace.log(TraceEvent.SHADOW_WRITE_FAILED, divergence);
+        }
+    }
+
+    /**
+     * Repeats a recorded check with the current Board and ReferenceRules.
+     *
+     * @param record a line of the divergence file
+     * @return the record with both current results if they still differ, or null if they agree
+     */
+    public static String replay(String record) {
+        String[] fields = record.trim().split("\\s+");
+        Check check = Check.valueOf(fields[0]);
+        long aiMask = Long.parseUnsignedLong(fields[1], 16);
+        long humanMask = Long.parseUnsignedLong(fields[2], 16);
+        boolean ai = fields[3].equals("ai");
+        Move move = fields[4].equals("-") ? null : Move.parse(fields[4]);
+        Board board = new Board(AI, HUMAN, aiMask, humanMask);
+        Sample sample;
+        switch (check) {
+            case VALID:
+                sample = new Sample(check, aiMask, humanMask, ai, move.encode(), board.isValidMove(move) ? 1 : 0, 0, null);
+                break;
+            case APPLY:
+                board.applyMove(move);
+                sample = new Sample(check, aiMask, humanMask, ai, move.encode(),
+                        board.getOccupancyMask(AI), board.getOccupancyMask(HUMAN), null);
+                break;
+            default:
+                List<Move> moves = board.getPossibleMoves(ai ? AI : HUMAN);
+                int[] packed = new int[moves.size()];
+                for (int i = 0; i < packed.length; i++) {
+                    packed[i] = moves.get(i).encode();
+                }
+                sample = new Sample(check, aiMask, humanMask, ai, -1, 0, 0, packed);
+        }
+        return sample.diverge();
+    }
+
+    /**
+     * @return the number of samples compared with the reference
+     */
+    public static long getCheckedCount() {
+        return checked.get();
+    }
+
+    /**
+     * @return the number of samples on which the reference disagreed
+     */
+    public static long getDivergenceCount() {
+        return divergences.get();
+    }
+
+    /**
+     * @return the number of samples dropped because the checker was behind
+     */
+    public static long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * The inputs and optimized result of one sampled call.
+     */
+    private static final class Sample {
+        final Check check;
+        final long aiMask;
+        final long humanMask;
+        final boolean ai;
+        final int move;       // Move.encode(), or -1 for MOVES
+        final long resultA;   // VALID: 1 if valid; APPLY: AI mask after the move
+        final long resultB;   // APPLY: human mask after the move
+        final int[] moves;    // MOVES: packed moves
+
+        Sample(Check check, long aiMask, long humanMask, boolean ai, int move, long resultA, long resultB, int[] moves) {
+            this.check = check;
+            this.aiMask = aiMask;
+            this.humanMask = humanMask;
+            this.ai = ai;
+            this.move = move;
+            this.resultA = resultA;
+            this.resultB = resultB;
+            this.moves = moves;
+        }
+
+        /**
+         * Runs the reference on the sampled position.
+         *
+         * @return the divergence record, or null if the results agree
+         */
+        String diverge() {
+            Board board = new Board(AI, HUMAN, aiMask, humanMask);
+            ReferenceRules reference = new ReferenceRules(board);
+            String actual;
+            String expected;
+            switch (check) {
+                case VALID:
+                    actual = String.valueOf(resultA == 1);
+                    expected = String.valueOf(reference.isValidMove(Move.decode(move)));
+                    break;
+                case APPLY:
+                    actual = Long.toHexString(resultA) + "/" + Long.toHexString(resultB);
+                    if (reference.isValidMove(Move.decode(move))) {
+                        long[] after = reference.applyMove(Move.decode(move));
+                        expected = Long.toHexString(after[0]) + "/" + Long.toHexString(after[1]);
+                    } else {
+                        expected = "invalid";
+                    }
+                    break;
+                default:
+                    actual = moveList(moves);
+                    List<Move> referenceMoves = reference.getPossibleMoves(ai ? AI : HUMAN);
+                    int[] packed = new int[referenceMoves.size()];
+                    for (int i = 0; i < packed.length; i++) {
+                        packed[i] = referenceMoves.get(i).encode();
+                    }
+                    expected = moveList(packed);
+            }
+            if (actual.equals(expected)) {
+                return null;
+            }
+            return check + " " + Long.toHexString(aiMask) + " " + Long.toHexString(humanMask) + " "
+                    + (check == Check.MOVES ? (ai ? "ai" : "human") : "-") + " "
+                    + (move == -1 ? "-" : Move.decode(move).toNotation()) + " " + actual + " " + expected;
+        }
+
+        /**
+         * @return the moves in notation, sorted so that the order of generation does not matter
+         */
+        private static String moveList(int[] packed) {
+            int[] sorted = packed.clone();
+            Arrays.sort(sorted);
+            StringBuilder builder = new StringBuilder();
+            for (int encoded : sorted) {
+                builder.append(builder.length() == 0 ? "" : ",").append(Move.decode(encoded).toNotation());
+            }
+            return builder.length() == 0 ? "none" : builder.toString();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.abalone.model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.abalone.model.utils.Move;
+import com.abalone.model.utils.SpectatorFrame;
+import com.abalone.model.utils.Players.Player;
+
+/**
+ * Broadcasts a game to any number of spectators.
+ *
+ * The channel listens to a GameManager and encodes every event once into a SpectatorFrame in a
+ * shared ring buffer. Spectators do not get a copy: each Subscription keeps its own cursor into
+ * the ring and reads the frames when it is polled, so publishing a move costs the same whether
+ * one spectator or fifty thousand are watching, and the game thread never waits for any of them.
+ * A subscription that falls more than the ring capacity behind has lost frames; it is resynced
+ * from the latest snapshot of the position, and dropped after too many resyncs.
+ *
+ * There is one writer, the thread applying the moves. Frames are written with release stores
+ * and the write position is published after them, in the same way as Trace.
+ */
+public class SpectatorChannel implements GameListener {
+    private final GameManager game;
+    private final int capacity;
+    private final int mask;
+    private final int maxResyncs;
+    private final AtomicLongArray ring;
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private volatile long published;     // frames below this sequence can be read
+    private volatile Snapshot latest;
+    private boolean moveApplied;         // the next turn change follows a move, not a pass
+
+    /**
+     * The position after all frames below sequence.
+     */
+    private static final class Snapshot {
+        final long aiMask;
+        final long humanMask;
+        final boolean humanTurn;
+        final long sequence;
+
+        Snapshot(long aiMask, long humanMask, boolean humanTurn, long sequence) {
+            this.aiMask = aiMask;
+            this.humanMask = humanMask;
+            this.humanTurn = humanTurn;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Creates a channel and registers it with the game.
+     *
+     * @param game the game to broadcast
+     * @param capacityBits the ring holds 2^capacityBits frames
+     * @param maxResyncs the number of resyncs after which a lagging subscription is dropped
+     */
+    public SpectatorChannel(GameManager game, int capacityBits, int maxResyncs) {
+        this.game = game;
+        this.capacity = 1 << capacityBits;
+        this.mask = capacity - 1;
+        this.maxResyncs = maxResyncs;
+        this.ring = new AtomicLongArray(capacity);
+        this.latest = snapshot(game.isHumanTurn());
+        game.addListener(this);
+    }
+
+    /**
+     * Stops broadcasting the game. Subscriptions can still read the frames already published.
+     */
+    public void close() {
+        game.removeListener(this);
+    }
+
+    /**
+     * Adds a spectator. Its first poll delivers a snapshot of the position.
+     *
+     * @return the subscription to poll
+     */
+    public Subscription subscribe() {
+        subscribers.incrementAndGet();
+        return new Subscription();
+    }
+
+    /**
+     * @return the number of subscriptions that were neither cancelled nor dropped
+     */
+    public int getSubscriberCount() {
+        return subscribers.get();
+    }
+
+    /**
+     * @return the number of frames published so far
+     */
+    public long getPublishedCount() {
+        return published;
+    }
+
+    @Override
+    public void onMoveApplied(Move move, Player mover) {
+        moveApplied = true;
+        boolean byAI = mover.getName().equals(game.getAIPlayerName());
+        // After a move the turn passes to the other side, unless the game is over.
+        publish(SpectatorFrame.move(move, byAI), byAI);
+    }
+
+    @Override
+    public void onTurnChanged(boolean humanTurn) {
+        if (moveApplied) {
+            moveApplied = false;
+            return;
+        }
+        publish(SpectatorFrame.pass(), humanTurn);
+    }
+
+    @Override
+    public void onPositionChanged(boolean humanTurn) {
+        Position position = game.getPosition();
+        long sequence = published;
+        ring.lazySet((int) (sequence & mask), SpectatorFrame.position(humanTurn));
+        ring.lazySet((int) ((sequence + 1) & mask), position.getAIMask());
+        ring.lazySet((int) ((sequence + 2) & mask), position.getHumanMask());
+        published = sequence + 3;
+        latest = snapshot(humanTurn);
+    }
+
+    @Override
+    public void onGameOver(String winner) {
+        moveApplied = false;
+        publish(SpectatorFrame.gameOver(winner.equals(game.getHumanPlayerName())), game.isHumanTurn());
+    }
+
+    private void publish(long frame, boolean humanTurn) {
+        long sequence = published;
+        ring.lazySet((int) (sequence & mask), frame);
+        published = sequence + 1;
+        latest = snapshot(humanTurn);
+    }
+
+    private Snapshot snapshot(boolean humanTurn) {
+        Position position = game.getPosition();
+        return new Snapshot(position.getAIMask(), position.getHumanMask(), humanTurn, published);
+    }
+
+    /**
+     * One spectator's position in the broadcast. A subscription is polled by one thread at a time.
+     */
+    public class Subscription {
+        private long cursor = -1;   // next sequence to read, -1 before the first snapshot
+        private int resyncs;
+        private boolean closed;
+
+        /**
+         * Delivers the frames published since the last poll, at most maxFrames of them.
+         * Delivers a snapshot first on the first poll and after falling behind.
+         *
+         * @param listener receives the snapshot and frames
+         * @param maxFrames the most frames to deliver
+         * @return the number of frames delivered, or -1 once the subscription is closed or dropped
+         */
+        public int poll(SpectatorListener listener, int maxFrames) {
+            if (closed) {
+                return -1;
+            }
+            long available = published;
+            if (cursor < 0 || available - cursor > capacity) {
+                if (!resync(listener)) {
+                    return -1;
+                }
+                available = published;
+            }
+            int delivered = 0;
+            while (cursor < available && delivered < maxFrames) {
+                long frame = ring.get((int) (cursor & mask));
+                boolean position = SpectatorFrame.type(frame) == SpectatorFrame.POSITION;
+                long aiMask = position ? ring.get((int) ((cursor + 1) & mask)) : 0;
+                long humanMask = position ? ring.get((int) ((cursor + 2) & mask)) : 0;
+                // The writer may have reused the slots while they were read. It writes up to
+                // three frames before publishing them, so it may be that far ahead of published.
+                if (published - cursor > capacity - 3) {
+                    if (!resync(listener)) {
+                        return -1;
+                    }
+                    available = published;
+                    continue;
+                }
+                listener.onFrame(frame, aiMask, humanMask);
+                cursor += position ? 3 : 1;
+                delivered++;
+            }
+            return delivered;
+        }
+
+        /**
+         * @return the number of frames published but not yet delivered
+         */
+        public long getLag() {
+            return cursor < 0 ? published : published - cursor;
+        }
+
+        /**
+         * @return the number of times the subscription fell behind and was resynced
+         */
+        public int getResyncCount() {
+            return resyncs;
+        }
+
+        /**
+         * Ends the subscription.
+         */
+        public void cancel() {
+            if (!closed) {
+                closed = true;
+                subscribers.decrementAndGet();
+            }
+        }
+
+        private boolean resync(SpectatorListener listener) {
+            if (cursor >= 0 && ++resyncs > maxResyncs) {
+                cancel();
+                return false;
+            }
+            Snapshot snapshot = latest;
+            listener.onSnapshot(snapshot.aiMask, snapshot.humanMask, snapshot.humanTurn);
+            cursor = snapshot.sequence;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.abalone.model;
+
+/**
+ * Receives the frames of a SpectatorChannel, on the thread that polls the subscription.
+ */
+public interface SpectatorListener {
+
+    /**
+     * Called with the whole position when the subscription starts and when it is resynced
+     * after falling behind. Frames delivered afterwards apply to this position.
+     *
+     * @param aiMask the AI pieces
+     * @param humanMask the human pieces
+     * @param humanTurn true if it is the human's turn
+     */
+    void onSnapshot(long aiMask, long humanMask, boolean humanTurn);
+
+    /**
+     * Called for every frame, in order. A POSITION frame is passed together with its masks.
+     *
+     * @param frame the SpectatorFrame
+     * @param aiMask the AI pieces of a POSITION frame, 0 otherwise
+     * @param humanMask the human pieces of a POSITION frame, 0 otherwise
+     */
+    void onFrame(long frame, long aiMask, long humanMask);
+}
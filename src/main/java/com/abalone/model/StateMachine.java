@@ -3,8 +3,12 @@ package com.abalone.model;
 import java.util.List;
 import java.util.Random;
 
+import com.abalone.model.metrics.Heuristic;
+import com.abalone.model.metrics.MoveMetrics;
+import com.abalone.model.metrics.SearchMetrics;
 import com.abalone.model.utils.Move;
-import com.abalone.model.utils.Players.AIPlayer;
+import com.abalone.model.utils.Trace;
+import com.abalone.model.utils.TraceEvent;
 import com.abalone.model.utils.Players.Player;
 
 /**
@@ -12,16 +16,85 @@ import com.abalone.model.utils.Players.Player;
  * Evaluates all valid moves using various heuristics and selects the best one.
  */
 public class StateMachine {
+    /** System property that makes the tie-breaking randomness reproducible. */
+    public static final String SEED_PROPERTY = "abalone.seed";
+
+    private final EvaluationWeights weights;
+    private final Random random;
+    private final SearchMetrics metrics = new SearchMetrics();
+    private int lastBestScore;
+
+    /**
+     * Creates a StateMachine using the configured evaluation weights.
+     */
+    public StateMachine() {
+        this(EvaluationWeights.configured());
+    }
+
+    /**
+     * Creates a StateMachine using the given evaluation weights, seeded from -Dabalone.seed
+     * when it is set.
+     *
+     * @param weights the heuristic weights
+     */
+    public StateMachine(EvaluationWeights weights) {
+        this(weights, configuredRandom());
+    }
+
+    /**
+     * Creates a StateMachine using the given evaluation weights and tie-breaking randomness.
+     * Two StateMachines given equally seeded generators choose the same moves.
+     *
+     * @param weights the heuristic weights
+     * @param random the source of the tie-breaking noise
+     */
+    public StateMachine(EvaluationWeights weights, Random random) {
+        this.weights = weights;
+        this.random = random;
+    }
+
+    private static Random configuredRandom() {
+        String seed = System.getProperty(SEED_PROPERTY);
+        return seed == null ? new Random() : new Random(Long.parseLong(seed));
+    }
+
+    /**
+     * @return the search counters of the last move, or null when metrics are disabled
+     */
+    public MoveMetrics getLastMoveMetrics() {
+        return metrics.getLastMove();
+    }
+
+    /**
+     * @return the heuristic weights used by this StateMachine
+     */
+    public EvaluationWeights getWeights() {
+        return weights;
+    }
 
     /**
      * Determines the best move for the AI by evaluating all valid moves.
      * O(n^3)
      * 
      * @param board the current board state
-     * @param aiPlayer the AI player
+     * @param aiPlayer the player to move
      * @return the move with the highest evaluation score, or null if no moves exist
      */
-    public Move determineAIMove(Board board, AIPlayer aiPlayer) {
+    public Move determineAIMove(Board board, Player aiPlayer) {
+        if (SearchMetrics.ENABLED) metrics.startMove();
+        Move bestMove = chooseMove(board, aiPlayer);
+        // A turn without a move is still a move of the engine, so it is recorded too.
+        if (SearchMetrics.ENABLED) metrics.endMove();
+        if (bestMove == null) return null;
+        Trace.log(TraceEvent.BEST_MOVE_SCORE, lastBestScore);
+        return bestMove;
+    }
+
+    /**
+     * determineAIMove without tracing or metrics. Sets lastBestScore.
+     * O(n^3)
+     */
+    Move chooseMove(Board board, Player aiPlayer) {
         List<Move> moves = board.getPossibleMoves(aiPlayer);
         if (moves.isEmpty()) return null;
         Move bestMove = null;
@@ -33,10 +106,24 @@ public class StateMachine {
                 bestMove = move;
             }
         }
-        System.out.println("Best move score: " + bestScore);
+        lastBestScore = bestScore;
         return bestMove;
     }
 
+    /**
+     * @return the depth in plies that determineAIMove looks ahead
+     */
+    public int getSearchDepth() {
+        return 1;
+    }
+
+    /**
+     * @return the score of the move chosen by the last call to determineAIMove
+     */
+    public int getLastBestScore() {
+        return lastBestScore;
+    }
+
     /**
      * Evaluates a given move by selecting a scoring function based on whether
      * the move is a push or a simple move.
@@ -47,24 +134,32 @@ public class StateMachine {
      * @param aiPlayer the AI player making the move
      * @return an integer score representing the desirability of the move
      */
-    private int evaluateMove(Move move, Board board, AIPlayer aiPlayer) {
+    private int evaluateMove(Move move, Board board, Player aiPlayer) {
         int score = 0;
         if (!board.isValidMove(move)) {
             return 0;
         }
 
+        if (SearchMetrics.ENABLED) metrics.countNode();
+        long lap = SearchMetrics.ENABLED ? System.nanoTime() : 0L;
+
         score += evaluatePushMove(move, board, aiPlayer);
+        if (SearchMetrics.ENABLED) lap = metrics.lap(Heuristic.PUSH, lap);
         
         score += evaluateCenteringMove(move, board, aiPlayer);
+        if (SearchMetrics.ENABLED) lap = metrics.lap(Heuristic.CENTERING, lap);
 
         score += evaluateDefensiveMove(move, board, aiPlayer);
+        if (SearchMetrics.ENABLED) lap = metrics.lap(Heuristic.DEFENSIVE, lap);
 
         score += evaluateBoardControl(move, board, aiPlayer);
+        if (SearchMetrics.ENABLED) lap = metrics.lap(Heuristic.BOARD_CONTROL, lap);
 
         score += evaluateEdgeVulnerability(move, board, aiPlayer);
+        if (SearchMetrics.ENABLED) metrics.lap(Heuristic.EDGE_VULNERABILITY, lap);
 
         // Add a small random factor to break ties.
-        score += new Random().nextInt(10);
+        score += random.nextInt(10);
         return score;
     }
 
@@ -79,7 +174,7 @@ public class StateMachine {
      * @param aiPlayer the AI player making the move
      * @return a score for the push move
      */
-    private int evaluatePushMove(Move move, Board board, AIPlayer aiPlayer) {
+    private int evaluatePushMove(Move move, Board board, Player aiPlayer) {
         int score = 0;
         int from = move.getFrom();
         int[] fromCoord = board.getIndexToCoord().get(from);
@@ -96,11 +191,11 @@ public class StateMachine {
         int opponentSize = opponentGroup.size();
 
         if (moverSize > opponentSize && opponentSize > 0) {
-            score += 10 * (moverSize - opponentSize);
+            score += weights.getPushGroupAdvantage() * (moverSize - opponentSize);
             int pushDest = board.getNextCellInDirection(opponentGroup.get(opponentGroup.size() - 1), dq, dr);
     
             if (pushDest == -1) {
-                score += 100;
+                score += weights.getPushEjection();
             }
             else {
                 int[] origCoord = board.getIndexToCoord().get(opponentGroup.get(opponentGroup.size() - 1));
@@ -108,7 +203,7 @@ public class StateMachine {
                 int origEdgeDistance = getEdgeDistance(origCoord);
                 int destEdgeDistance = getEdgeDistance(destCoord);
                 if (destEdgeDistance < origEdgeDistance) {
-                    score += 30 * (origEdgeDistance - destEdgeDistance);
+                    score += weights.getPushTowardEdge() * (origEdgeDistance - destEdgeDistance);
                 }
             }
         }
@@ -124,7 +219,7 @@ public class StateMachine {
      * @param aiPlayer the AI player making the move
      * @return a score for the simple move
      */
-    private int evaluateCenteringMove(Move move, Board board, AIPlayer aiPlayer) {
+    private int evaluateCenteringMove(Move move, Board board, Player aiPlayer) {
         int score = 0;
         int from = move.getFrom();
         int to = move.getTo();
@@ -143,7 +238,7 @@ public class StateMachine {
         int centerDistanceFrom = hexDistance(leadingPieceFromCoord, new int[]{0, 0});
         int centerDistanceTo = hexDistance(leadingPieceToCoord, new int[]{0, 0});
         if (centerDistanceTo < centerDistanceFrom) {
-            score += (centerDistanceFrom - centerDistanceTo) * 20;
+            score += (centerDistanceFrom - centerDistanceTo) * weights.getCentering();
         }
         return score;
     }
@@ -158,15 +253,15 @@ public class StateMachine {
      * @param aiPlayer the AI player
      * @return a bonus score if the move blocks opponent winning threats; 0 otherwise.
      */
-    private int evaluateDefensiveMove(Move move, Board board, AIPlayer aiPlayer) {
+    private int evaluateDefensiveMove(Move move, Board board, Player aiPlayer) {
         int bonus = 0;
         Board simulatedBoard = board.clone();
         simulatedBoard.applyMove(move);
         int oppWinsBefore = board.countOpponentWinningMoves(board, aiPlayer); // O(n^2)
         int oppWinsAfter = board.countOpponentWinningMoves(simulatedBoard, aiPlayer);
         if (oppWinsAfter < oppWinsBefore) {
-            bonus = 10000 * (oppWinsBefore - oppWinsAfter);
-            System.out.println("Prevented " + (oppWinsBefore - oppWinsAfter) + " opponent winning moves");
+            bonus = weights.getDefensive() * (oppWinsBefore - oppWinsAfter);
+            Trace.log(TraceEvent.PREVENTED_WINNING_MOVES, oppWinsBefore - oppWinsAfter);
         }
         return bonus;
     }
@@ -182,24 +277,24 @@ public class StateMachine {
      * @param aiPlayer the AI player making the move
      * @return a bonus score for board control
      */
-    private int evaluateBoardControl(Move move, Board board, AIPlayer aiPlayer) {
+    private int evaluateBoardControl(Move move, Board board, Player aiPlayer) {
         Board simulatedBoard = board.clone();
         simulatedBoard.applyMove(move);
         
         // Calculate mobility for AI before the move.
-        int beforeAIMobility = board.getPossibleMoves(aiPlayer).size();
+        int beforeAIMobility = board.getMobility(aiPlayer);
         
         // Calculate mobility before for the human opponent.
-        int beforeOpponentMobility = board.getPossibleMoves(board.opponentPlayer(aiPlayer)).size();
+        int beforeOpponentMobility = board.getMobility(board.opponentPlayer(aiPlayer));
         
         // Calculate mobility for AI after the move.
-        int afterAIMobility = simulatedBoard.getPossibleMoves(aiPlayer).size();
+        int afterAIMobility = simulatedBoard.getMobility(aiPlayer);
         
         // Calculate mobility for the human opponent.
-        int afterOpponentMobility = simulatedBoard.getPossibleMoves(board.opponentPlayer(aiPlayer)).size();
+        int afterOpponentMobility = simulatedBoard.getMobility(board.opponentPlayer(aiPlayer));
         
         // The bonus is calculated using the difference in mobility for the before and after.
-        int bonus = ((afterAIMobility - afterOpponentMobility) - (beforeAIMobility - beforeOpponentMobility))* 5;
+        int bonus = ((afterAIMobility - afterOpponentMobility) - (beforeAIMobility - beforeOpponentMobility)) * weights.getBoardControl();
 
         return bonus;
     }
@@ -215,7 +310,7 @@ public class StateMachine {
      * @param aiPlayer the AI player making the move
      * @return a negative penalty score if the move leaves AI vulnerable, 0 otherwise.
      */
-    private int evaluateEdgeVulnerability(Move move, Board board, AIPlayer aiPlayer) {
+    private int evaluateEdgeVulnerability(Move move, Board board, Player aiPlayer) {
         int beforePushingOfEdgeOppertunities = 0;
         int afterPushingOfEdgeOppertunities = 0;
 
@@ -271,7 +366,7 @@ public class StateMachine {
                 }
             }
         }
-        return 200 * (beforePushingOfEdgeOppertunities - afterPushingOfEdgeOppertunities);
+        return weights.getEdgeVulnerability() * (beforePushingOfEdgeOppertunities - afterPushingOfEdgeOppertunities);
     }
 
 
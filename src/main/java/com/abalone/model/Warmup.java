@@ -0,0 +1,231 @@
+package com.abalone.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import com.abalone.model.search.HeuristicEvaluator;
+import com.abalone.model.search.PositionEvaluator;
+import com.abalone.model.search.Search;
+import com.abalone.model.utils.Move;
+import com.abalone.model.utils.Trace;
+import com.abalone.model.utils.TraceEvent;
+import com.abalone.model.utils.Players.AIPlayer;
+import com.abalone.model.utils.Players.Player;
+
+/**
+ * Warms up the JIT so that the first AI move of a process is as fast as the later ones.
+ *
+ * Switched on with -Dabalone.warmup=true. A daemon thread plays rounds over the positions of
+ * the bundled benchmark corpus: move generation, validation, apply and undo and evaluation of
+ * every move, a StateMachine move choice and a short Search. Once the JIT has compiled the hot
+ * methods a round stops getting faster and the compiler threads fall idle, so warm-up ends when
+ * STABLE_ROUNDS rounds in a row are within TOLERANCE of the fastest one and spent less than
+ * TOLERANCE of their time compiling (or after MAX_ROUNDS or MAX_MILLIS). The readiness future
+ * completes then; callers that must not serve games before, such as SessionStore.isReady, wait on it.
+ */
+public final class Warmup {
+    /** System property that enables warm-up at startup. */
+    public static final String PROPERTY = "abalone.warmup";
+
+    private static final String POSITIONS = "/com/abalone/model/training/bench-corpus.txt";
+    private static final int MIN_ROUNDS = 3;
+    private static final int MAX_ROUNDS = 40;
+    private static final long MAX_MILLIS = 20_000;
+    private static final int STABLE_ROUNDS = 2;
+    private static final double TOLERANCE = 0.10;
+    private static final int SEARCH_DEPTH = 3;
+    private static final int SEARCH_EVERY = 3; // search one position in this many per round
+
+    private static CompletableFuture<Report> running;
+
+    private Warmup() {
+    }
+
+    /**
+     * What the warm-up did.
+     */
+    public static final class Report {
+        private final int rounds;
+        private final long firstRoundMillis;
+        private final long lastRoundMillis;
+        private final long totalMillis;
+        private final long compilationMillis;
+
+        Report(int rounds, long firstRoundMillis, long lastRoundMillis, long totalMillis, long compilationMillis) {
+            this.rounds = rounds;
+            this.firstRoundMillis = firstRoundMillis;
+            this.lastRoundMillis = lastRoundMillis;
+            this.totalMillis = totalMillis;
+            this.compilationMillis = compilationMillis;
+        }
+
+        public int getRounds() {
+            return rounds;
+        }
+
+        public long getFirstRoundMillis() {
+            return firstRoundMillis;
+        }
+
+        public long getLastRoundMillis() {
+            return lastRoundMillis;
+        }
+
+        public long getTotalMillis() {
+            return totalMillis;
+        }
+
+        /**
+         * @return the JIT compilation time spent during warm-up, or -1 if the JVM does not report it
+         */
+        public long getCompilationMillis() {
+            return compilationMillis;
+        }
+
+        @Override
+        public String toString() {
+            return rounds + " rounds in " + totalMillis + " ms, round time " + firstRoundMillis + " -> "
+                    + lastRoundMillis + " ms, JIT " + compilationMillis + " ms";
+        }
+    }
+
+    /**
+     * Starts warm-up on a background thread, once per process.
+     *
+     * @return completes with the report when warm-up is done, or exceptionally if it fails
+     */
+    public static synchronized CompletableFuture<Report> start() {
+        if (running == null) {
+            CompletableFuture<Report> readiness = new CompletableFuture<>();
+            running = readiness;
+            Thread thread = new Thread(() -> {
+                try {
+                    readiness.complete(run());
+                } catch (Throwable e) {
+                    // Whatever stops the warm-up, OutOfMemoryError included, must not leave callers waiting forever.
+                    readiness.completeExceptionally(e);
+                    if (e instanceof Error) {
+                        throw (Error) e;
+                    }
+                }
+            }, "abalone-warmup");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return running;
+    }
+
+    /**
+     * Starts warm-up if -Dabalone.warmup=true.
+     *
+     * @return the readiness future, already completed with null when warm-up is off
+     */
+    public static CompletableFuture<Report> configured() {
+        return Boolean.getBoolean(PROPERTY) ? start() : CompletableFuture.completedFuture(null);
+    }
+
+    private static Report run() throws IOException {
+        List<long[]> positions = loadPositions();
+        // The same player classes and board mode as GameManager, so the JIT profiles match real games.
+        Player ai = new AIPlayer("AI");
+        Player human = new Player("Human");
+        StateMachine stateMachine = new StateMachine(EvaluationWeights.defaults(), new Random(0));
+        PositionEvaluator evaluator = new HeuristicEvaluator(EvaluationWeights.defaults());
+        Search search = new Search();
+        CompilationMXBean compiler = ManagementFactory.getCompilationMXBean();
+        boolean timed = compiler != null && compiler.isCompilationTimeMonitoringSupported();
+        long compileStart = timed ? compiler.getTotalCompilationTime() : 0;
+
+        long start = System.nanoTime();
+        long fastest = Long.MAX_VALUE;
+        long first = 0;
+        long last = 0;
+        int stable = 0;
+        int rounds = 0;
+        while (rounds < MAX_ROUNDS && (System.nanoTime() - start) / 1_000_000 < MAX_MILLIS) {
+            long roundStart = System.nanoTime();
+            long roundCompileStart = timed ? compiler.getTotalCompilationTime() : 0;
+            int checksum = 0;
+            for (int i = 0; i < positions.size(); i++) {
+                long[] position = positions.get(i);
+                Board board = new Board(ai, human, position[0], position[1]);
+                Player toMove = position[2] == 1 ? ai : human;
+                checksum += exercise(board, toMove, evaluator);
+                checksum += exercise(board, board.opponentPlayer(toMove), evaluator);
+                board.setIncrementalMoves(true);
+                Move move = stateMachine.chooseMove(board, toMove);
+                board.setIncrementalMoves(false);
+                checksum += move == null ? 0 : move.encode();
+                if (i % SEARCH_EVERY == rounds % SEARCH_EVERY) {
+                    checksum += (int) search.analyze(board, toMove, 1, SEARCH_DEPTH, 0, null).getNodes();
+                }
+            }
+            last = (System.nanoTime() - roundStart) / 1_000_000;
+            if (rounds++ == 0) {
+                first = last;
+            }
+            // Keeps the JIT from treating the work as dead code.
+            if (checksum == 42) {
+                Thread.yield();
+            }
+            // The JIT compiles on its own threads, so a round is only settled once it also stopped compiling.
+            long compiling = timed ? compiler.getTotalCompilationTime() - roundCompileStart : 0;
+            boolean settled = Math.abs(last - fastest) <= fastest * TOLERANCE && compiling <= last * TOLERANCE;
+            stable = rounds > 1 && settled ? stable + 1 : 0;
+            fastest = Math.min(fastest, last);
+            if (rounds >= MIN_ROUNDS && stable >= STABLE_ROUNDS) {
+                break;
+            }
+        }
+        long total = (System.nanoTime() - start) / 1_000_000;
+        Trace.log(TraceEvent.WARMUP_DONE, rounds, (int) total);
+        return new Report(rounds, first, last, total, timed ? compiler.getTotalCompilationTime() - compileStart : -1);
+    }
+
+    /**
+     * Generates, validates, applies, evaluates and undoes every move of a player.
+     */
+    private static int exercise(Board board, Player player, PositionEvaluator evaluator) {
+        int checksum = board.getMobility(player);
+        for (Move move : board.getPossibleMoves(player)) {
+            if (board.isValidMove(move) && !board.isPushMove(move)) {
+                checksum++;
+            }
+            int delta = board.applyMove(move);
+            checksum += evaluator.evaluate(board, player);
+            board.undoMove(delta);
+        }
+        return checksum;
+    }
+
+    /**
+     * @return {AI mask, human mask, 1 if the AI is to move} for each corpus position
+     */
+    private static List<long[]> loadPositions() throws IOException {
+        List<long[]> positions = new ArrayList<>();
+        try (InputStream in = Warmup.class.getResourceAsStream(POSITIONS)) {
+            if (in == null) {
+                throw new IOException("Missing resource " + POSITIONS);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.trim().split("\\s+");
+                positions.add(new long[]{Long.parseUnsignedLong(fields[0], 16), Long.parseUnsignedLong(fields[1], 16),
+                        fields[2].equals("ai") ? 1 : 0});
+            }
+        }
+        return positions;
+    }
+}
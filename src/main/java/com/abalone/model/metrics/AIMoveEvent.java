@@ -0,0 +1,52 @@
+package com.abalone.model.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event committed once per AI move when metrics are enabled.
+ */
+@Name("com.abalone.AIMove")
+@Label("AI Move")
+@Category("Abalone")
+@Description("Search counters of a single AI move")
+class AIMoveEvent extends Event {
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Nodes Per Second")
+    long nodesPerSecond;
+
+    @Label("Beta Cutoffs")
+    long betaCutoffs;
+
+    @Label("Cache Hits")
+    long cacheHits;
+
+    @Label("Cache Misses")
+    long cacheMisses;
+
+    @Label("Push Heuristic Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long pushTime;
+
+    @Label("Centering Heuristic Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long centeringTime;
+
+    @Label("Defensive Heuristic Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long defensiveTime;
+
+    @Label("Board Control Heuristic Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long boardControlTime;
+
+    @Label("Edge Vulnerability Heuristic Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long edgeVulnerabilityTime;
+}
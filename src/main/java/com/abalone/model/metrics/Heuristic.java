@@ -0,0 +1,12 @@
+package com.abalone.model.metrics;
+
+/**
+ * The StateMachine heuristics whose cost is tracked by SearchMetrics.
+ */
+public enum Heuristic {
+    PUSH,
+    CENTERING,
+    DEFENSIVE,
+    BOARD_CONTROL,
+    EDGE_VULNERABILITY
+}
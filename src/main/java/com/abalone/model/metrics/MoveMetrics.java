@@ -0,0 +1,72 @@
+package com.abalone.model.metrics;
+
+/**
+ * Immutable snapshot of the search counters for a single AI move.
+ */
+public class MoveMetrics {
+    private final long nodes;
+    private final long elapsedNanos;
+    private final long betaCutoffs;
+    private final long cacheHits;
+    private final long cacheMisses;
+    private final long[] heuristicNanos;
+
+    MoveMetrics(long nodes, long elapsedNanos, long betaCutoffs, long cacheHits, long cacheMisses, long[] heuristicNanos) {
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+        this.betaCutoffs = betaCutoffs;
+        this.cacheHits = cacheHits;
+        this.cacheMisses = cacheMisses;
+        this.heuristicNanos = heuristicNanos;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return nodes searched per second during this move
+     */
+    public long getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : nodes * 1_000_000_000L / elapsedNanos;
+    }
+
+    public long getBetaCutoffs() {
+        return betaCutoffs;
+    }
+
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    /**
+     * @param heuristic the heuristic
+     * @return the time spent in that heuristic during this move, in nanoseconds
+     */
+    public long getHeuristicNanos(Heuristic heuristic) {
+        return heuristicNanos[heuristic.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("nodes=").append(nodes)
+          .append(" nps=").append(getNodesPerSecond())
+          .append(" cutoffs=").append(betaCutoffs)
+          .append(" cacheHits=").append(cacheHits)
+          .append(" cacheMisses=").append(cacheMisses);
+        for (Heuristic heuristic : Heuristic.values()) {
+            sb.append(' ').append(heuristic.name().toLowerCase()).append("Us=")
+              .append(heuristicNanos[heuristic.ordinal()] / 1000);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,231 @@
+package com.abalone.model.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Per-engine search counters.
+ *
+ * Instrumentation is switched on with -Dabalone.metrics=true. Callers guard every call with the
+ * ENABLED constant, which the JIT folds away when metrics are off, so disabled metrics cost nothing
+ * on the hot path. Counters are plain fields written by the engine thread only; at the end of each
+ * move they are published as a MoveMetrics snapshot, added to the process totals exposed over JMX
+ * and committed as a JFR event.
+ */
+public class SearchMetrics {
+    public static final boolean ENABLED = Boolean.getBoolean("abalone.metrics");
+
+    private static final Totals TOTALS = new Totals();
+
+    static {
+        if (ENABLED) {
+            try {
+                ManagementFactory.getPlatformMBeanServer()
+                        .registerMBean(TOTALS, new ObjectName("com.abalone:type=SearchMetrics"));
+            } catch (JMException e) {
+                throw new IllegalStateException("Cannot register search metrics MBean", e);
+            }
+        }
+    }
+
+    private long moveStart;
+    private long nodes;
+    private long betaCutoffs;
+    private long cacheHits;
+    private long cacheMisses;
+    private final long[] heuristicNanos = new long[Heuristic.values().length];
+    private MoveMetrics lastMove;
+
+    /**
+     * Creates the counters of one engine. Engines that run concurrently need their own instance.
+     */
+    public SearchMetrics() {
+    }
+
+    /**
+     * Clears the per-move counters at the start of a move.
+     */
+    public void startMove() {
+        moveStart = System.nanoTime();
+        nodes = 0;
+        betaCutoffs = 0;
+        cacheHits = 0;
+        cacheMisses = 0;
+        Arrays.fill(heuristicNanos, 0);
+    }
+
+    public void countNode() {
+        nodes++;
+    }
+
+    public void countBetaCutoff() {
+        betaCutoffs++;
+    }
+
+    public void countCacheHit() {
+        cacheHits++;
+    }
+
+    public void countCacheMiss() {
+        cacheMisses++;
+    }
+
+    /**
+     * Charges the time since start to a heuristic.
+     *
+     * @param heuristic the heuristic that just finished
+     * @param start the System.nanoTime() value taken before it ran
+     * @return the current System.nanoTime(), to be used as the start of the next lap
+     */
+    public long lap(Heuristic heuristic, long start) {
+        long now = System.nanoTime();
+        heuristicNanos[heuristic.ordinal()] += now - start;
+        return now;
+    }
+
+    /**
+     * Publishes the counters of the finished move.
+     *
+     * @return the snapshot of this move
+     */
+    public MoveMetrics endMove() {
+        long elapsed = System.nanoTime() - moveStart;
+        lastMove = new MoveMetrics(nodes, elapsed, betaCutoffs, cacheHits, cacheMisses, heuristicNanos.clone());
+        TOTALS.add(lastMove);
+
+        AIMoveEvent event = new AIMoveEvent();
+        if (event.isEnabled()) {
+            event.nodes = nodes;
+            event.nodesPerSecond = lastMove.getNodesPerSecond();
+            event.betaCutoffs = betaCutoffs;
+            event.cacheHits = cacheHits;
+            event.cacheMisses = cacheMisses;
+            event.pushTime = heuristicNanos[Heuristic.PUSH.ordinal()];
+            event.centeringTime = heuristicNanos[Heuristic.CENTERING.ordinal()];
+            event.defensiveTime = heuristicNanos[Heuristic.DEFENSIVE.ordinal()];
+            event.boardControlTime = heuristicNanos[Heuristic.BOARD_CONTROL.ordinal()];
+            event.edgeVulnerabilityTime = heuristicNanos[Heuristic.EDGE_VULNERABILITY.ordinal()];
+            event.commit();
+        }
+        return lastMove;
+    }
+
+    /**
+     * @return the snapshot of the last finished move, or null if metrics are disabled or no move finished yet
+     */
+    public MoveMetrics getLastMove() {
+        return lastMove;
+    }
+
+    /**
+     * Counts a lookup in a cache consulted outside a move, such as the persistent analysis cache.
+     * Only the process totals are updated.
+     *
+     * @param hit true if the lookup found an entry
+     */
+    public static void countCacheLookup(boolean hit) {
+        if (hit) {
+            TOTALS.cacheHits.incrementAndGet();
+        } else {
+            TOTALS.cacheMisses.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return the process-wide totals, also registered over JMX
+     */
+    public static SearchMetricsMXBean totals() {
+        return TOTALS;
+    }
+
+    /**
+     * Process-wide totals, updated once per move from any engine thread.
+     */
+    private static class Totals implements SearchMetricsMXBean {
+        private final AtomicLong moves = new AtomicLong();
+        private final AtomicLong nodes = new AtomicLong();
+        private final AtomicLong betaCutoffs = new AtomicLong();
+        private final AtomicLong cacheHits = new AtomicLong();
+        private final AtomicLong cacheMisses = new AtomicLong();
+        private final AtomicLongArray heuristicNanos = new AtomicLongArray(Heuristic.values().length);
+        private volatile long lastNodesPerSecond;
+
+        void add(MoveMetrics move) {
+            moves.incrementAndGet();
+            nodes.addAndGet(move.getNodes());
+            betaCutoffs.addAndGet(move.getBetaCutoffs());
+            cacheHits.addAndGet(move.getCacheHits());
+            cacheMisses.addAndGet(move.getCacheMisses());
+            for (Heuristic heuristic : Heuristic.values()) {
+                heuristicNanos.addAndGet(heuristic.ordinal(), move.getHeuristicNanos(heuristic));
+            }
+            lastNodesPerSecond = move.getNodesPerSecond();
+        }
+
+        @Override
+        public long getMovesSearched() {
+            return moves.get();
+        }
+
+        @Override
+        public long getNodes() {
+            return nodes.get();
+        }
+
+        @Override
+        public long getBetaCutoffs() {
+            return betaCutoffs.get();
+        }
+
+        @Override
+        public long getCacheHits() {
+            return cacheHits.get();
+        }
+
+        @Override
+        public long getCacheMisses() {
+            return cacheMisses.get();
+        }
+
+        @Override
+        public double getCacheHitRate() {
+            long hits = cacheHits.get();
+            long lookups = hits + cacheMisses.get();
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+
+        @Override
+        public long getLastNodesPerSecond() {
+            return lastNodesPerSecond;
+        }
+
+        @Override
+        public Map<String, Long> getHeuristicTimeMillis() {
+            Map<String, Long> result = new LinkedHashMap<>();
+            for (Heuristic heuristic : Heuristic.values()) {
+                result.put(heuristic.name(), heuristicNanos.get(heuristic.ordinal()) / 1_000_000);
+            }
+            return result;
+        }
+
+        @Override
+        public void reset() {
+            moves.set(0);
+            nodes.set(0);
+            betaCutoffs.set(0);
+            cacheHits.set(0);
+            cacheMisses.set(0);
+            for (int i = 0; i < heuristicNanos.length(); i++) {
+                heuristicNanos.set(i, 0);
+            }
+            lastNodesPerSecond = 0;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.abalone.model.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of the cumulative AI search counters of this process.
+ * Registered as com.abalone:type=SearchMetrics when metrics are enabled.
+ */
+public interface SearchMetricsMXBean {
+    long getMovesSearched();
+
+    long getNodes();
+
+    long getBetaCutoffs();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    double getCacheHitRate();
+
+    /**
+     * @return nodes per second of the most recent move
+     */
+    long getLastNodesPerSecond();
+
+    /**
+     * @return cumulative time in milliseconds spent in each heuristic
+     */
+    Map<String, Long> getHeuristicTimeMillis();
+
+    void reset();
+}
@@ -0,0 +1,54 @@
+package com.abalone.model.search;
+
+import java.util.List;
+
+import com.abalone.model.utils.Move;
+
+/**
+ * One analysed root move: its score, the depth it was searched to and its principal variation.
+ */
+public class AnalysisLine {
+    private final Move move;
+    private final int score;
+    private final int depth;
+    private final List<Move> principalVariation;
+
+    public AnalysisLine(Move move, int score, int depth, List<Move> principalVariation) {
+        this.move = move;
+        this.score = score;
+        this.depth = depth;
+        this.principalVariation = principalVariation;
+    }
+
+    public Move getMove() {
+        return move;
+    }
+
+    /**
+     * @return the score from the point of view of the player to move
+     */
+    public int getScore() {
+        return score;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return the expected line of play, starting with this line's move
+     */
+    public List<Move> getPrincipalVariation() {
+        return principalVariation;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(score).append(" (depth ").append(depth).append("):");
+        for (Move pvMove : principalVariation) {
+            sb.append(' ').append(pvMove.toNotation());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,9 @@
+package com.abalone.model.search;
+
+/**
+ * Receives the analysis each time the search completes a deeper iteration.
+ * Called on the searching thread.
+ */
+public interface AnalysisListener {
+    void onUpdate(AnalysisResult result);
+}
@@ -0,0 +1,55 @@
+package com.abalone.model.search;
+
+import java.util.List;
+
+import com.abalone.model.utils.Move;
+
+/**
+ * The best root moves found by a completed search iteration, best first.
+ */
+public class AnalysisResult {
+    private final List<AnalysisLine> lines;
+    private final int depth;
+    private final long nodes;
+    private final long elapsedNanos;
+
+    public AnalysisResult(List<AnalysisLine> lines, int depth, long nodes, long elapsedNanos) {
+        this.lines = lines;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return up to k lines, best first
+     */
+    public List<AnalysisLine> getLines() {
+        return lines;
+    }
+
+    /**
+     * @return the best move, or null if the player to move has no moves
+     */
+    public Move getBestMove() {
+        return lines.isEmpty() ? null : lines.get(0).getMove();
+    }
+
+    /**
+     * @return the score of the best move
+     */
+    public int getBestScore() {
+        return lines.isEmpty() ? 0 : lines.get(0).getScore();
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
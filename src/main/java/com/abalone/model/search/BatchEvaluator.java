@@ -0,0 +1,90 @@
+package com.abalone.model.search;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.abalone.model.EvaluationWeights;
+
+/**
+ * Evaluates many positions at once with a HeuristicEvaluator.
+ *
+ * Positions are packed in a long[] as (own, opponent) occupancy pairs, from the point of view of
+ * the side to move, and scores are written to an int[] at the position index. The inner loop only
+ * reads the two arrays sequentially and calls the mask evaluation of HeuristicEvaluator, which the
+ * JIT inlines, so batch and search scores always come from the same formula. Large batches are
+ * split across cores with fork-join.
+ */
+public class BatchEvaluator {
+    /** Below this many positions a batch is evaluated on the calling thread. */
+    private static final int SPLIT_THRESHOLD = 8192;
+
+    private final HeuristicEvaluator evaluator;
+    private final ForkJoinPool pool;
+
+    public BatchEvaluator(EvaluationWeights weights) {
+        this(weights, ForkJoinPool.commonPool());
+    }
+
+    public BatchEvaluator(EvaluationWeights weights, ForkJoinPool pool) {
+        this.evaluator = new HeuristicEvaluator(weights);
+        this.pool = pool;
+    }
+
+    /**
+     * Scores every position of the batch, splitting large batches across the pool.
+     *
+     * @param positions own and opponent masks of each position, positions[2i] and positions[2i + 1]
+     * @param scores receives the score of position i at index i
+     */
+    public void evaluate(long[] positions, int[] scores) {
+        int count = positions.length / 2;
+        if (scores.length < count) {
+            throw new IllegalArgumentException("Score array holds " + scores.length + " of " + count + " positions");
+        }
+        if (count <= SPLIT_THRESHOLD) {
+            evaluate(positions, scores, 0, count);
+        } else {
+            pool.invoke(new Batch(positions, scores, 0, count));
+        }
+    }
+
+    /**
+     * Scores positions [from, to) of the batch on the calling thread. O(to - from)
+     *
+     * @param positions own and opponent masks of each position
+     * @param scores receives the scores
+     * @param from first position index
+     * @param to end position index, exclusive
+     */
+    public void evaluate(long[] positions, int[] scores, int from, int to) {
+        for (int i = from; i < to; i++) {
+            scores[i] = evaluator.evaluate(positions[2 * i], positions[2 * i + 1]);
+        }
+    }
+
+    private final class Batch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] positions;
+        private final int[] scores;
+        private final int from;
+        private final int to;
+
+        Batch(long[] positions, int[] scores, int from, int to) {
+            this.positions = positions;
+            this.scores = scores;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                evaluate(positions, scores, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Batch(positions, scores, from, middle), new Batch(positions, scores, middle, to));
+        }
+    }
+}
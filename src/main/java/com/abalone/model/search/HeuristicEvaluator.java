@@ -0,0 +1,59 @@
+package com.abalone.model.search;
+
+import com.abalone.model.Board;
+import com.abalone.model.BoardSymmetry;
+import com.abalone.model.EvaluationWeights;
+import com.abalone.model.utils.Players.Player;
+
+/**
+ * Position evaluation built from the StateMachine weights: material, weighted like an ejection,
+ * and centering, weighted per step of distance from the center.
+ * Works on the occupancy masks only, so it costs a few bit operations per position.
+ */
+public class HeuristicEvaluator implements PositionEvaluator {
+    /** RINGS[d] holds the cells at distance d from the center. */
+    static final long[] RINGS = new long[5];
+
+    static {
+        for (int cell = 0; cell < 61; cell++) {
+            RINGS[BoardSymmetry.centerDistance(cell)] |= 1L << cell;
+        }
+    }
+
+    private final int materialWeight;
+    private final int centeringWeight;
+
+    public HeuristicEvaluator(EvaluationWeights weights) {
+        this.materialWeight = weights.getPushEjection();
+        this.centeringWeight = weights.getCentering();
+    }
+
+    @Override
+    public int evaluate(Board board, Player toMove) {
+        long own = board.getOccupancyMask(toMove);
+        long opponent = board.getOccupancyMask(board.opponentPlayer(toMove));
+        return evaluate(own, opponent);
+    }
+
+    /**
+     * @param own pieces of the side to move
+     * @param opponent pieces of the other side
+     * @return the score from the point of view of the side to move
+     */
+    public int evaluate(long own, long opponent) {
+        int material = Long.bitCount(own) - Long.bitCount(opponent);
+        int centering = distanceSum(opponent) - distanceSum(own);
+        return materialWeight * material + centeringWeight * centering;
+    }
+
+    /**
+     * @param mask a set of cells
+     * @return the sum of the distances of the cells from the center, one bitCount per ring
+     */
+    static int distanceSum(long mask) {
+        return Long.bitCount(mask & RINGS[1])
+                + 2 * Long.bitCount(mask & RINGS[2])
+                + 3 * Long.bitCount(mask & RINGS[3])
+                + 4 * Long.bitCount(mask & RINGS[4]);
+    }
+}
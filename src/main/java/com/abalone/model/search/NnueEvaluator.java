@@ -0,0 +1,140 @@
+package com.abalone.model.search;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.abalone.model.Board;
+import com.abalone.model.CellListener;
+import com.abalone.model.utils.Trace;
+import com.abalone.model.utils.TraceEvent;
+import com.abalone.model.utils.Players.Player;
+
+/**
+ * Position evaluator backed by an NnueNetwork.
+ *
+ * The evaluator keeps one hidden accumulator per side for the board it is attached to. Each piece
+ * placed or removed on that board adds or subtracts one weight row per accumulator, so a move
+ * costs a few row updates instead of a full forward pass, and evaluate() only runs the small
+ * output layer. The accumulators are int16 in plain loops the JIT can vectorize; NnueNetwork
+ * rejects weights that could overflow them, and the output layer sums in a long.
+ * An evaluator serves one board at a time, so every search thread needs its own instance.
+ */
+public class NnueEvaluator implements PositionEvaluator, CellListener {
+    /** System property naming the weights file. */
+    public static final String WEIGHTS_PROPERTY = "abalone.nnue";
+
+    // Networks are immutable, so each weights file is read once and shared by every evaluator.
+    private static final Map<String, Optional<NnueNetwork>> NETWORKS = new ConcurrentHashMap<>();
+
+    private final NnueNetwork network;
+    private final int hidden;
+    private final short[] aiAccumulator;    // AI pieces as own pieces
+    private final short[] humanAccumulator; // human pieces as own pieces
+    private Board attached;
+
+    public NnueEvaluator(NnueNetwork network) {
+        this.network = network;
+        this.hidden = network.hidden;
+        this.aiAccumulator = new short[hidden];
+        this.humanAccumulator = new short[hidden];
+    }
+
+    /**
+     * Returns an evaluator of the network named by the abalone.nnue system property. The file is
+     * loaded on first use only.
+     *
+     * @return a new evaluator, or null if no weights file is configured or it cannot be read
+     */
+    public static NnueEvaluator configured() {
+        String path = System.getProperty(WEIGHTS_PROPERTY);
+        if (path == null) {
+            return null;
+        }
+        return NETWORKS.computeIfAbsent(path, NnueEvaluator::load).map(NnueEvaluator::new).orElse(null);
+    }
+
+    private static Optional<NnueNetwork> load(String path) {
+        try {
+            return Optional.of(NnueNetwork.load(Paths.get(path)));
+        } catch (IOException e) {
+            Trace.log(TraceEvent.NNUE_LOAD_FAILED);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Rebuilds the accumulators from the board and follows its changes from now on.
+     */
+    @Override
+    public void attach(Board board) {
+        if (attached != null) {
+            attached.setCellListener(null);
+        }
+        attached = board;
+        System.arraycopy(network.hiddenBiases, 0, aiAccumulator, 0, hidden);
+        System.arraycopy(network.hiddenBiases, 0, humanAccumulator, 0, hidden);
+        long ai = board.getOccupancyMask(board.getAIPlayer());
+        while (ai != 0) {
+            onPiecePlaced(Long.numberOfTrailingZeros(ai), true);
+            ai &= ai - 1;
+        }
+        long human = board.getOccupancyMask(board.getHumanPlayer());
+        while (human != 0) {
+            onPiecePlaced(Long.numberOfTrailingZeros(human), false);
+            human &= human - 1;
+        }
+        board.setCellListener(this);
+    }
+
+    @Override
+    public void onPiecePlaced(int cell, boolean ai) {
+        add(aiAccumulator, ai ? cell : NnueNetwork.CELLS + cell);
+        add(humanAccumulator, ai ? NnueNetwork.CELLS + cell : cell);
+    }
+
+    @Override
+    public void onPieceRemoved(int cell, boolean ai) {
+        subtract(aiAccumulator, ai ? cell : NnueNetwork.CELLS + cell);
+        subtract(humanAccumulator, ai ? NnueNetwork.CELLS + cell : cell);
+    }
+
+    private void add(short[] accumulator, int feature) {
+        short[] weights = network.inputWeights;
+        int offset = feature * hidden;
+        for (int h = 0; h < hidden; h++) {
+            accumulator[h] += weights[offset + h];
+        }
+    }
+
+    private void subtract(short[] accumulator, int feature) {
+        short[] weights = network.inputWeights;
+        int offset = feature * hidden;
+        for (int h = 0; h < hidden; h++) {
+            accumulator[h] -= weights[offset + h];
+        }
+    }
+
+    @Override
+    public int evaluate(Board board, Player toMove) {
+        if (board != attached) {
+            attach(board);
+        }
+        boolean aiToMove = toMove.getName().equals(board.getAIPlayer().getName());
+        short[] own = aiToMove ? aiAccumulator : humanAccumulator;
+        short[] other = aiToMove ? humanAccumulator : aiAccumulator;
+        short[] weights = network.outputWeights;
+        long sum = 0;
+        for (int h = 0; h < hidden; h++) {
+            sum += clamp(own[h]) * weights[h] + clamp(other[h]) * weights[hidden + h];
+        }
+        long output = sum + network.outputBias;
+        return (int) (output * NnueNetwork.EVAL_SCALE / (NnueNetwork.ACTIVATION_MAX * NnueNetwork.OUTPUT_SCALE));
+    }
+
+    private static int clamp(short value) {
+        return Math.min(Math.max(value, 0), NnueNetwork.ACTIVATION_MAX);
+    }
+}
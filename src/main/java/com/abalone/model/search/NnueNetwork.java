@@ -0,0 +1,133 @@
+package com.abalone.model.search;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Quantized weights of the NNUE-style evaluation network.
+ *
+ * Each side's view of the position is a 122-entry input (61 cells with an own piece, then 61
+ * cells with an opponent piece) feeding a shared hidden layer. The two hidden accumulators are
+ * clipped to [0, ACTIVATION_MAX] and combined by the output layer, with the accumulator of the
+ * side to move first.
+ *
+ * The accumulators are int16, so a network is only accepted if no position can overflow them:
+ * for every hidden unit, the bias plus the MAX_PIECES largest own-piece weights and the
+ * MAX_PIECES largest opponent-piece weights, in absolute value, must fit in a short.
+ *
+ * File layout (little endian): int magic, int version, int hidden size, then int16 input weights
+ * [122][hidden], int16 hidden biases [hidden], int16 output weights [2 * hidden], int32 output bias.
+ */
+public class NnueNetwork {
+    public static final int MAGIC = 0x4E4E4241; // "ABNN"
+    public static final int VERSION = 1;
+    public static final int CELLS = 61;
+    public static final int INPUTS = 2 * CELLS;
+    /** Pieces of one side at the start of the game, the most an accumulator ever adds up. */
+    public static final int MAX_PIECES = 14;
+    /** Scale of the input weights and hidden biases; a hidden activation of 1.0 is stored as this value. */
+    public static final int ACTIVATION_MAX = 255;
+    /** Scale of the output weights. */
+    public static final int OUTPUT_SCALE = 64;
+    /** Evaluation units per unit of network output. */
+    public static final int EVAL_SCALE = 400;
+
+    final int hidden;
+    final short[] inputWeights;  // [feature * hidden + h]
+    final short[] hiddenBiases;
+    final short[] outputWeights; // side to move first, then the other side
+    final int outputBias;
+
+    public NnueNetwork(int hidden, short[] inputWeights, short[] hiddenBiases, short[] outputWeights, int outputBias) {
+        if (inputWeights.length != INPUTS * hidden || hiddenBiases.length != hidden || outputWeights.length != 2 * hidden) {
+            throw new IllegalArgumentException("Weight arrays do not match hidden size " + hidden);
+        }
+        for (int h = 0; h < hidden; h++) {
+            long bound = Math.abs(hiddenBiases[h]) + largest(inputWeights, hidden, h, 0) + largest(inputWeights, hidden, h, CELLS);
+            if (bound > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("Hidden unit " + h + " can reach " + bound + ", beyond the int16 accumulator");
+            }
+        }
+        this.hidden = hidden;
+        this.inputWeights = inputWeights;
+        this.hiddenBiases = hiddenBiases;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+    }
+
+    /**
+     * O(n log n) where n is the number of cells.
+     *
+     * @return the sum of the MAX_PIECES largest absolute weights of hidden unit h among the
+     *         CELLS features starting at firstFeature
+     */
+    private static long largest(short[] inputWeights, int hidden, int h, int firstFeature) {
+        int[] magnitudes = new int[CELLS];
+        for (int cell = 0; cell < CELLS; cell++) {
+            magnitudes[cell] = Math.abs(inputWeights[(firstFeature + cell) * hidden + h]);
+        }
+        Arrays.sort(magnitudes);
+        long sum = 0;
+        for (int i = CELLS - MAX_PIECES; i < CELLS; i++) {
+            sum += magnitudes[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Loads a network from a weights file.
+     *
+     * @param path the weights file
+     * @return the network
+     * @throws IOException if the file cannot be read, has the wrong format or weights out of range
+     */
+    public static NnueNetwork load(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < 12 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Not an NNUE weights file: " + path);
+        }
+        int hidden = buffer.getInt();
+        if (hidden <= 0 || buffer.remaining() != 2 * (INPUTS * hidden + hidden + 2 * hidden) + 4) {
+            throw new IOException("Truncated NNUE weights file: " + path);
+        }
+        short[] inputWeights = new short[INPUTS * hidden];
+        short[] hiddenBiases = new short[hidden];
+        short[] outputWeights = new short[2 * hidden];
+        buffer.asShortBuffer().get(inputWeights);
+        buffer.position(buffer.position() + 2 * inputWeights.length);
+        buffer.asShortBuffer().get(hiddenBiases);
+        buffer.position(buffer.position() + 2 * hiddenBiases.length);
+        buffer.asShortBuffer().get(outputWeights);
+        buffer.position(buffer.position() + 2 * outputWeights.length);
+        try {
+            return new NnueNetwork(hidden, inputWeights, hiddenBiases, outputWeights, buffer.getInt());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid NNUE weights file " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the network to a weights file.
+     *
+     * @param path the destination file
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(12 + 2 * (inputWeights.length + hiddenBiases.length + outputWeights.length) + 4)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(hidden);
+        for (short w : inputWeights) buffer.putShort(w);
+        for (short b : hiddenBiases) buffer.putShort(b);
+        for (short w : outputWeights) buffer.putShort(w);
+        buffer.putInt(outputBias);
+        Files.write(path, buffer.array());
+    }
+
+    public int getHiddenSize() {
+        return hidden;
+    }
+}
@@ -0,0 +1,38 @@
+package com.abalone.model.search;
+
+import com.abalone.model.Board;
+import com.abalone.model.EvaluationWeights;
+import com.abalone.model.utils.Players.Player;
+
+/**
+ * Static evaluation of a position, used at the leaves of the search.
+ */
+public interface PositionEvaluator {
+
+    /**
+     * Returns the NNUE evaluator if -Dabalone.nnue names a weights file, and the heuristic
+     * evaluator with the configured weights otherwise.
+     *
+     * @return a new evaluator for one search thread
+     */
+    static PositionEvaluator configured() {
+        PositionEvaluator nnue = NnueEvaluator.configured();
+        return nnue != null ? nnue : new HeuristicEvaluator(EvaluationWeights.configured());
+    }
+
+    /**
+     * Called by the search with the board it is about to walk, so evaluators that keep
+     * incremental state can follow it. The default does nothing.
+     *
+     * @param board the board the search will modify and evaluate
+     */
+    default void attach(Board board) {
+    }
+
+    /**
+     * @param board the position
+     * @param toMove the player to move
+     * @return the score of the position from the point of view of the player to move
+     */
+    int evaluate(Board board, Player toMove);
+}
@@ -0,0 +1,401 @@
+package com.abalone.model.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.abalone.model.Board;
+import com.abalone.model.utils.Move;
+import com.abalone.model.utils.Players.Player;
+
+/**
+ * Depth-first proof-number (df-pn) search for forced ejections.
+ *
+ * Proves or disproves "the attacker, to move, can force k more ejections within n plies". Nodes
+ * where the attacker moves are OR nodes and the defender's are AND nodes. A node is proven once
+ * the defender is down to the target count, or to 8 pieces since the game is then won. It is
+ * disproven once the attacker is down to 8 pieces and has lost the game, or when the plies run
+ * out or the attacker has fewer moves left than ejections still needed (a move ejects at most one piece).
+ * Proof and disproof numbers are kept in a fixed-size table that replaces the entry with less work
+ * behind it, so memory stays bounded however long the search runs. Keys include the plies left,
+ * the target and the attacker, so one table can serve any number of solves.
+ *
+ * A side without a legal move passes, as in GameManager.
+ */
+public class ProofNumberSearch {
+    public static final int INFINITY = 100_000_000;
+    public static final int MAX_PLIES = 64;
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    public enum Status { PROVEN, DISPROVEN, UNKNOWN }
+
+    /**
+     * Outcome of a solve.
+     */
+    public static class Result {
+        private final Status status;
+        private final Move move;
+        private final long nodes;
+        private final long elapsedNanos;
+
+        Result(Status status, Move move, long nodes, long elapsedNanos) {
+            this.status = status;
+            this.move = move;
+            this.nodes = nodes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * @return the first move of the forced sequence when proven, null otherwise
+         */
+        public Move getMove() {
+            return move;
+        }
+
+        public long getNodes() {
+            return nodes;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return status + (move != null ? " " + move.toNotation() : "") + " (" + nodes + " nodes, "
+                    + elapsedNanos / 1_000_000 + " ms)";
+        }
+    }
+
+    private static final long[] PLY_KEYS = new long[MAX_PLIES + 1];
+    private static final long[] TARGET_KEYS = new long[15];
+    private static final long AI_ATTACKER_KEY;
+
+    static {
+        Random random = new Random(0x50524F4FL);
+        for (int i = 0; i < PLY_KEYS.length; i++) {
+            PLY_KEYS[i] = random.nextLong();
+        }
+        for (int i = 0; i < TARGET_KEYS.length; i++) {
+            TARGET_KEYS[i] = random.nextLong();
+        }
+        AI_ATTACKER_KEY = random.nextLong();
+    }
+
+    /** Solver of each pool thread, kept between solves since its table stays valid. */
+    private static final ThreadLocal<ProofNumberSearch> WORKER_SOLVERS = new ThreadLocal<>();
+
+    private final long[] keys;
+    private final int[] proofs;
+    private final int[] disproofs;
+    private final int[] works;
+    private final int mask;
+
+    private Board board;
+    private Player attacker;
+    private Player defender;
+    private int target;
+    private long salt;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private AtomicBoolean stop;
+    private boolean aborted;
+    // Proof and disproof numbers of the node mid() returned from.
+    private int lastProof;
+    private int lastDisproof;
+
+    /**
+     * @param tableBits log2 of the number of table entries; each entry takes 20 bytes
+     */
+    public ProofNumberSearch(int tableBits) {
+        int size = 1 << tableBits;
+        keys = new long[size];
+        proofs = new int[size];
+        disproofs = new int[size];
+        works = new int[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Solves on the calling thread.
+     *
+     * @param position the position, left unchanged
+     * @param attacker the side to move, which tries to eject
+     * @param ejections the number of defender pieces to eject
+     * @param plies the ply limit, counting both sides' moves
+     * @param nodeLimit the number of nodes after which the solve gives up
+     * @return the result, UNKNOWN if the node limit was reached
+     */
+    public Result solve(Board position, Player attacker, int ejections, int plies, long nodeLimit) {
+        long start = System.nanoTime();
+        Board board = position.clone();
+        board.setIncrementalMoves(false);
+        int target = board.getMarbleCount(board.opponentPlayer(attacker)) - ejections;
+        Status status = prove(board, attacker, target, attacker, plies, nodeLimit, Long.MAX_VALUE, new AtomicBoolean());
+        Move move = status == Status.PROVEN ? provingMove(attacker, plies) : null;
+        return new Result(status, move, nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Solves with the attacker's root moves spread over a pool, each worker with its own table.
+     * The first proven root move stops the other workers.
+     *
+     * @param position the position, left unchanged
+     * @param attacker the side to move, which tries to eject
+     * @param ejections the number of defender pieces to eject
+     * @param plies the ply limit, counting both sides' moves
+     * @param nodeLimit the node limit of each root move
+     * @param pool the workers
+     * @param tableBits log2 of the table size of each worker
+     * @return the result, UNKNOWN if some root move hit the node limit and none was proven
+     */
+    public static Result solveParallel(Board position, Player attacker, int ejections, int plies, long nodeLimit,
+            ExecutorService pool, int tableBits) throws InterruptedException {
+        return solveParallel(position, attacker, ejections, plies, nodeLimit, pool, tableBits, Long.MAX_VALUE);
+    }
+
+    /**
+     * Solves like solveParallel, giving up once System.nanoTime() passes the deadline.
+     *
+     * @param deadlineNanos the System.nanoTime() value after which every worker stops
+     * @return the result, UNKNOWN if some root move hit the node limit or the deadline and none was proven
+     */
+    public static Result solveParallel(Board position, Player attacker, int ejections, int plies, long nodeLimit,
+            ExecutorService pool, int tableBits, long deadlineNanos) throws InterruptedException {
+        long start = System.nanoTime();
+        Player defender = position.opponentPlayer(attacker);
+        int target = position.getMarbleCount(defender) - ejections;
+        List<Move> moves = position.getPossibleMoves(attacker);
+        if (plies <= 0 || moves.isEmpty() || ejections <= 0 || position.isGameOver()) {
+            // Passing at the root is left to the single-threaded solve.
+            return new ProofNumberSearch(tableBits).solve(position, attacker, ejections, plies, nodeLimit);
+        }
+        AtomicBoolean stop = new AtomicBoolean();
+        List<Future<long[]>> results = new ArrayList<>();
+        for (Move move : moves) {
+            results.add(pool.submit(() -> {
+                ProofNumberSearch solver = WORKER_SOLVERS.get();
+                if (solver == null || solver.keys.length != 1 << tableBits) {
+                    solver = new ProofNumberSearch(tableBits);
+                    WORKER_SOLVERS.set(solver);
+                }
+                Board board = position.clone();
+                board.setIncrementalMoves(false);
+                board.applyMove(move);
+                Status status = solver.prove(board, attacker, target, defender, plies - 1, nodeLimit, deadlineNanos, stop);
+                if (status == Status.PROVEN) {
+                    stop.set(true);
+                }
+                return new long[]{status.ordinal(), solver.nodes};
+            }));
+        }
+        long nodes = 0;
+        Status status = Status.DISPROVEN;
+        Move proving = null;
+        try {
+            for (int i = 0; i < moves.size(); i++) {
+                long[] result = results.get(i).get();
+                nodes += result[1];
+                Status childStatus = Status.values()[(int) result[0]];
+                if (childStatus == Status.PROVEN && proving == null) {
+                    proving = moves.get(i);
+                    status = Status.PROVEN;
+                } else if (childStatus == Status.UNKNOWN && status == Status.DISPROVEN) {
+                    status = Status.UNKNOWN;
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Proof-number worker failed", e.getCause());
+        }
+        return new Result(status, proving, nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Runs df-pn from the board's position.
+     */
+    private Status prove(Board board, Player attacker, int target, Player toMove, int plies, long nodeLimit, long deadline,
+            AtomicBoolean stop) {
+        this.board = board;
+        this.attacker = attacker;
+        this.defender = board.opponentPlayer(attacker);
+        this.target = target;
+        this.salt = TARGET_KEYS[Math.max(0, target)] ^ (attacker == board.getAIPlayer() ? AI_ATTACKER_KEY : 0);
+        this.nodes = 0;
+        this.nodeLimit = nodeLimit;
+        this.deadline = deadline;
+        this.stop = stop;
+        this.aborted = false;
+        plies = Math.min(plies, MAX_PLIES);
+
+        if (!evaluate(toMove, plies)) {
+            mid(toMove, plies, INFINITY, INFINITY);
+        }
+        if (lastProof == 0) {
+            return Status.PROVEN;
+        }
+        return lastDisproof == 0 ? Status.DISPROVEN : Status.UNKNOWN;
+    }
+
+    /**
+     * Expands a node until its proof or disproof number reaches its threshold.
+     * Leaves the node's numbers in lastProof and lastDisproof.
+     */
+    private void mid(Player toMove, int plies, int proofThreshold, int disproofThreshold) {
+        long key = key(toMove, plies);
+        boolean or = toMove == attacker;
+        Player next = board.opponentPlayer(toMove);
+        List<Move> moves = board.getPossibleMoves(toMove);
+        int count = Math.max(1, moves.size()); // an empty move list is one pass
+        int[] childProofs = new int[count];
+        int[] childDisproofs = new int[count];
+        for (int i = 0; i < count; i++) {
+            int delta = moves.isEmpty() ? -1 : board.applyMove(moves.get(i));
+            evaluate(next, plies - 1);
+            if (delta != -1) {
+                board.undoMove(delta);
+            }
+            childProofs[i] = lastProof;
+            childDisproofs[i] = lastDisproof;
+        }
+
+        int work = 0;
+        while (true) {
+            int proof;
+            int disproof;
+            int best = 0;
+            int second = INFINITY; // proof number (OR) or disproof number (AND) of the runner-up
+            if (or) {
+                proof = INFINITY;
+                disproof = 0;
+                for (int i = 0; i < count; i++) {
+                    if (childProofs[i] < proof) {
+                        second = proof;
+                        proof = childProofs[i];
+                        best = i;
+                    } else if (childProofs[i] < second) {
+                        second = childProofs[i];
+                    }
+                    disproof = add(disproof, childDisproofs[i]);
+                }
+            } else {
+                proof = 0;
+                disproof = INFINITY;
+                for (int i = 0; i < count; i++) {
+                    if (childDisproofs[i] < disproof) {
+                        second = disproof;
+                        disproof = childDisproofs[i];
+                        best = i;
+                    } else if (childDisproofs[i] < second) {
+                        second = childDisproofs[i];
+                    }
+                    proof = add(proof, childProofs[i]);
+                }
+            }
+            if (proof >= proofThreshold || disproof >= disproofThreshold || aborted) {
+                store(key, proof, disproof, work);
+                lastProof = proof;
+                lastDisproof = disproof;
+                return;
+            }
+            if (++nodes > nodeLimit || stop.get()
+                    || nodes % TIME_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+                aborted = true;
+                continue;
+            }
+
+            int childProofThreshold;
+            int childDisproofThreshold;
+            if (or) {
+                childProofThreshold = Math.min(proofThreshold, add(second, 1));
+                childDisproofThreshold = add(disproofThreshold - disproof, childDisproofs[best]);
+            } else {
+                childDisproofThreshold = Math.min(disproofThreshold, add(second, 1));
+                childProofThreshold = add(proofThreshold - proof, childProofs[best]);
+            }
+            long before = nodes;
+            int delta = moves.isEmpty() ? -1 : board.applyMove(moves.get(best));
+            mid(next, plies - 1, childProofThreshold, childDisproofThreshold);
+            if (delta != -1) {
+                board.undoMove(delta);
+            }
+            work += (int) Math.min(Integer.MAX_VALUE - work, nodes - before);
+            childProofs[best] = lastProof;
+            childDisproofs[best] = lastDisproof;
+        }
+    }
+
+    /**
+     * Sets lastProof and lastDisproof from the rules or the table.
+     *
+     * @return true if the node is decided by the rules
+     */
+    private boolean evaluate(Player toMove, int plies) {
+        // The game ends when either side is down to 8 pieces, so nothing is searched past it.
+        int needed = board.getMarbleCount(defender) - Math.max(target, 8);
+        if (needed <= 0) {
+            lastProof = 0;
+            lastDisproof = INFINITY;
+            return true;
+        }
+        if (board.getMarbleCount(attacker) <= 8) {
+            lastProof = INFINITY;
+            lastDisproof = 0;
+            return true;
+        }
+        int attackerMoves = toMove == attacker ? (plies + 1) / 2 : plies / 2;
+        if (attackerMoves < needed) {
+            lastProof = INFINITY;
+            lastDisproof = 0;
+            return true;
+        }
+        long key = key(toMove, plies);
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        if (keys[slot] == key) {
+            lastProof = proofs[slot];
+            lastDisproof = disproofs[slot];
+        } else {
+            lastProof = 1;
+            lastDisproof = 1;
+        }
+        return false;
+    }
+
+    private Move provingMove(Player toMove, int plies) {
+        for (Move move : board.getPossibleMoves(toMove)) {
+            int delta = board.applyMove(move);
+            evaluate(board.opponentPlayer(toMove), plies - 1);
+            board.undoMove(delta);
+            if (lastProof == 0) {
+                return move;
+            }
+        }
+        return null;
+    }
+
+    private long key(Player toMove, int plies) {
+        return board.getHash(toMove) ^ PLY_KEYS[plies] ^ salt;
+    }
+
+    private void store(long key, int proof, int disproof, int work) {
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        if (keys[slot] == key || works[slot] <= work) {
+            keys[slot] = key;
+            proofs[slot] = proof;
+            disproofs[slot] = disproof;
+            works[slot] = work;
+        }
+    }
+
+    private static int add(int a, int b) {
+        return (int) Math.min(INFINITY, (long) a + b);
+    }
+}
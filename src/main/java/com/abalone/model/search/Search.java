@@ -0,0 +1,295 @@
+package com.abalone.model.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.abalone.model.Board;
+import com.abalone.model.metrics.MoveMetrics;
+import com.abalone.model.metrics.SearchMetrics;
+import com.abalone.model.utils.Move;
+import com.abalone.model.utils.Players.Player;
+
+/**
+ * Iterative deepening alpha-beta search with multi-PV analysis at the root.
+ *
+ * Each iteration searches every root move, keeping the k best exactly: a root move only has to
+ * beat the current k-th best score, so the others are refuted with a cheaper bound. After every
+ * completed iteration the k best lines, with their principal variations, are passed to the listener.
+ * The search works on a private copy of the board and walks the tree with applyMove/undoMove.
+ *
+ * Three enhancements can be switched with SearchOptions: principal variation search (null windows
+ * for every move after the first), aspiration windows around the previous iteration's best score,
+ * and late move reductions for quiet moves at the end of the move list.
+ */
+public class Search {
+    public static final int WIN_SCORE = 1_000_000;
+    private static final int INFINITY = Integer.MAX_VALUE - 1;
+    public static final int MAX_PLY = 64;
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    private final PositionEvaluator evaluator;
+    private final SearchOptions options;
+    private final SearchMetrics metrics = new SearchMetrics();
+
+    private final int[][] pvTable = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+    private final int[] pushCounts = new int[MAX_PLY]; // pushes at the front of each ply's ordered moves
+    private long nodes;
+    private long deadline;
+    private volatile boolean stopped;
+
+    /**
+     * Creates a search with the configured evaluator and options.
+     */
+    public Search() {
+        this(PositionEvaluator.configured(), SearchOptions.configured());
+    }
+
+    public Search(PositionEvaluator evaluator) {
+        this(evaluator, SearchOptions.configured());
+    }
+
+    public Search(PositionEvaluator evaluator, SearchOptions options) {
+        this.evaluator = evaluator;
+        this.options = options;
+    }
+
+    /**
+     * Searches the position with iterative deepening and returns the k best moves.
+     *
+     * @param board the position, which is not modified
+     * @param toMove the player to move
+     * @param multiPv the number of best moves to report
+     * @param maxDepth the deepest iteration to run
+     * @param timeLimitMillis the time limit, or 0 for none
+     * @param listener receives the result of every completed iteration, or null
+     * @return the result of the deepest completed iteration
+     */
+    public AnalysisResult analyze(Board board, Player toMove, int multiPv, int maxDepth, long timeLimitMillis,
+                                  AnalysisListener listener) {
+        long start = System.nanoTime();
+        deadline = timeLimitMillis > 0 ? start + timeLimitMillis * 1_000_000L : Long.MAX_VALUE;
+        stopped = false;
+        nodes = 0;
+        if (SearchMetrics.ENABLED) metrics.startMove();
+
+        Board position = board.clone();
+        // Generating moves at each node is cheaper than keeping both sides' move sets through every make and unmake.
+        position.setIncrementalMoves(false);
+        evaluator.attach(position);
+        List<RootMove> rootMoves = new ArrayList<>();
+        for (Move move : orderMoves(position, position.getPossibleMoves(toMove), 0)) {
+            rootMoves.add(new RootMove(move));
+        }
+        AnalysisResult result = new AnalysisResult(Collections.emptyList(), 0, 0, 0);
+        for (int depth = 1; depth <= Math.min(maxDepth, MAX_PLY - 1) && !rootMoves.isEmpty(); depth++) {
+            if (!searchRoot(position, toMove, rootMoves, multiPv, depth)) {
+                break;
+            }
+            result = buildResult(rootMoves, multiPv, depth, System.nanoTime() - start);
+            if (listener != null) {
+                listener.onUpdate(result);
+            }
+        }
+        if (SearchMetrics.ENABLED) metrics.endMove();
+        return result;
+    }
+
+    /**
+     * Stops a running search from another thread. The last completed iteration is returned.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * @return the search counters of the last analysis, or null when metrics are disabled
+     */
+    public MoveMetrics getLastMetrics() {
+        return metrics.getLastMove();
+    }
+
+    /**
+     * Searches all root moves to the given depth and sorts them by score.
+     * @return false if the iteration was aborted
+     */
+    private boolean searchRoot(Board board, Player toMove, List<RootMove> rootMoves, int multiPv, int depth) {
+        Player opponent = board.opponentPlayer(toMove);
+        int exactCount = 0;
+        int[] bestScores = new int[multiPv]; // the k best exact scores of this iteration, best first
+        for (int index = 0; index < rootMoves.size(); index++) {
+            RootMove rootMove = rootMoves.get(index);
+            int bound = exactCount < multiPv ? -INFINITY : bestScores[multiPv - 1];
+            int delta = board.applyMove(rootMove.move);
+            int score;
+            if (index == 0 && depth > 1 && options.isAspirationWindows()) {
+                // The best move of the last iteration is likely to score close to its last score.
+                int low = rootMove.score - options.getAspirationWindow();
+                int high = rootMove.score + options.getAspirationWindow();
+                score = -negamax(board, opponent, depth - 1, -high, -low, 1);
+                if (!stopped && (score <= low || score >= high)) {
+                    score = -negamax(board, opponent, depth - 1, -INFINITY, INFINITY, 1);
+                }
+            } else if (bound != -INFINITY && options.isPrincipalVariationSearch()) {
+                // Only prove that the move does not beat the k-th best; re-search if it does.
+                score = -negamax(board, opponent, depth - 1, -bound - 1, -bound, 1);
+                if (!stopped && score > bound) {
+                    score = -negamax(board, opponent, depth - 1, -INFINITY, -bound, 1);
+                }
+            } else {
+                score = -negamax(board, opponent, depth - 1, -INFINITY, -bound, 1);
+            }
+            board.undoMove(delta);
+            if (stopped) {
+                return false;
+            }
+            rootMove.score = score;
+            rootMove.depth = depth;
+            if (score > bound) {
+                rootMove.pv = collectPv(rootMove.move);
+                int i = Math.min(exactCount, multiPv - 1);
+                while (i > 0 && bestScores[i - 1] < score) {
+                    bestScores[i] = bestScores[i - 1];
+                    i--;
+                }
+                bestScores[i] = score;
+                exactCount = Math.min(exactCount + 1, multiPv);
+            }
+        }
+        // Stable sort keeps the previous order among equal scores.
+        rootMoves.sort((a, b) -> Integer.compare(b.score, a.score));
+        return true;
+    }
+
+    /**
+     * Negamax alpha-beta search.
+     *
+     * @return the score from the point of view of the side to move
+     */
+    private int negamax(Board board, Player side, int depth, int alpha, int beta, int ply) {
+        pvLength[ply] = 0;
+        nodes++;
+        if (SearchMetrics.ENABLED) metrics.countNode();
+        if (nodes % TIME_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+            stopped = true;
+        }
+        if (stopped) {
+            return 0;
+        }
+        if (board.isGameOver()) {
+            // Only the previous move can have ended the game, so the side to move has lost.
+            return -WIN_SCORE + ply;
+        }
+        if (depth == 0 || ply >= MAX_PLY - 1) {
+            return evaluator.evaluate(board, side);
+        }
+        List<Move> moves = board.getPossibleMoves(side);
+        if (moves.isEmpty()) {
+            return -WIN_SCORE + ply;
+        }
+        Player opponent = board.opponentPlayer(side);
+        int best = -INFINITY;
+        List<Move> ordered = orderMoves(board, moves, ply);
+        int pushes = pushCounts[ply];
+        for (int index = 0; index < ordered.size(); index++) {
+            Move move = ordered.get(index);
+            boolean quiet = index >= pushes;
+            int delta = board.applyMove(move);
+            int score;
+            int reduction = options.isLateMoveReductions() && quiet && depth >= 3
+                    && index >= options.getLateMoveThreshold() ? 1 : 0;
+            if (index == 0) {
+                score = -negamax(board, opponent, depth - 1, -beta, -alpha, ply + 1);
+            } else if (options.isPrincipalVariationSearch()) {
+                score = -negamax(board, opponent, depth - 1 - reduction, -alpha - 1, -alpha, ply + 1);
+                if (!stopped && score > alpha && reduction > 0) {
+                    // The reduced search failed high, so verify at full depth.
+                    score = -negamax(board, opponent, depth - 1, -alpha - 1, -alpha, ply + 1);
+                }
+                if (!stopped && score > alpha && score < beta) {
+                    score = -negamax(board, opponent, depth - 1, -beta, -alpha, ply + 1);
+                }
+            } else {
+                score = -negamax(board, opponent, depth - 1 - reduction, -beta, -alpha, ply + 1);
+                if (!stopped && score > alpha && reduction > 0) {
+                    score = -negamax(board, opponent, depth - 1, -beta, -alpha, ply + 1);
+                }
+            }
+            board.undoMove(delta);
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                }
+                if (alpha >= beta) {
+                    if (SearchMetrics.ENABLED) metrics.countBetaCutoff();
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Orders pushes before quiet moves, since they are the moves most likely to change the score.
+     * Each move is classified once; the number of pushes is left in pushCounts[ply].
+     */
+    private List<Move> orderMoves(Board board, List<Move> moves, int ply) {
+        List<Move> ordered = new ArrayList<>(moves.size());
+        List<Move> quiet = new ArrayList<>(moves.size());
+        for (Move move : moves) {
+            if (board.isPushMove(move)) {
+                ordered.add(move);
+            } else {
+                quiet.add(move);
+            }
+        }
+        pushCounts[ply] = ordered.size();
+        ordered.addAll(quiet);
+        return ordered;
+    }
+
+    private void updatePv(int ply, Move move) {
+        pvTable[ply][0] = move.encode();
+        System.arraycopy(pvTable[ply + 1], 0, pvTable[ply], 1, pvLength[ply + 1]);
+        pvLength[ply] = pvLength[ply + 1] + 1;
+    }
+
+    private List<Move> collectPv(Move rootMove) {
+        List<Move> pv = new ArrayList<>();
+        pv.add(rootMove);
+        for (int i = 0; i < pvLength[1]; i++) {
+            pv.add(Move.decode(pvTable[1][i]));
+        }
+        return pv;
+    }
+
+    private AnalysisResult buildResult(List<RootMove> rootMoves, int multiPv, int depth, long elapsedNanos) {
+        List<AnalysisLine> lines = new ArrayList<>();
+        for (int i = 0; i < Math.min(multiPv, rootMoves.size()); i++) {
+            RootMove rootMove = rootMoves.get(i);
+            lines.add(new AnalysisLine(rootMove.move, rootMove.score, rootMove.depth,
+                    rootMove.pv != null ? rootMove.pv : Collections.singletonList(rootMove.move)));
+        }
+        return new AnalysisResult(lines, depth, nodes, elapsedNanos);
+    }
+
+    /**
+     * A root move and its score from the latest iteration.
+     */
+    private static class RootMove {
+        final Move move;
+        int score;
+        int depth;
+        List<Move> pv;
+
+        RootMove(Move move) {
+            this.move = move;
+        }
+    }
+}
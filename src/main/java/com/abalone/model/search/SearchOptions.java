@@ -0,0 +1,90 @@
+package com.abalone.model.search;
+
+/**
+ * Switches for the search enhancements, so the effect of each one can be measured.
+ * All enhancements are on by default; each can be turned off with a system property
+ * (abalone.search.pvs, abalone.search.aspiration, abalone.search.lmr set to false).
+ */
+public class SearchOptions {
+    private boolean principalVariationSearch = true;
+    private boolean aspirationWindows = true;
+    private boolean lateMoveReductions = true;
+    private int aspirationWindow = 50;
+    private int lateMoveThreshold = 4;
+
+    /**
+     * @return options read from the abalone.search.* system properties
+     */
+    public static SearchOptions configured() {
+        SearchOptions options = new SearchOptions();
+        options.setPrincipalVariationSearch(Boolean.parseBoolean(System.getProperty("abalone.search.pvs", "true")));
+        options.setAspirationWindows(Boolean.parseBoolean(System.getProperty("abalone.search.aspiration", "true")));
+        options.setLateMoveReductions(Boolean.parseBoolean(System.getProperty("abalone.search.lmr", "true")));
+        return options;
+    }
+
+    /**
+     * @return true if moves after the first are searched with a null window and re-searched only if they beat it
+     */
+    public boolean isPrincipalVariationSearch() {
+        return principalVariationSearch;
+    }
+
+    public SearchOptions setPrincipalVariationSearch(boolean principalVariationSearch) {
+        this.principalVariationSearch = principalVariationSearch;
+        return this;
+    }
+
+    /**
+     * @return true if each iteration starts with a narrow window around the previous iteration's score
+     */
+    public boolean isAspirationWindows() {
+        return aspirationWindows;
+    }
+
+    public SearchOptions setAspirationWindows(boolean aspirationWindows) {
+        this.aspirationWindows = aspirationWindows;
+        return this;
+    }
+
+    /**
+     * @return true if late quiet moves are first searched one ply shallower
+     */
+    public boolean isLateMoveReductions() {
+        return lateMoveReductions;
+    }
+
+    public SearchOptions setLateMoveReductions(boolean lateMoveReductions) {
+        this.lateMoveReductions = lateMoveReductions;
+        return this;
+    }
+
+    /**
+     * @return the half width of the aspiration window
+     */
+    public int getAspirationWindow() {
+        return aspirationWindow;
+    }
+
+    public SearchOptions setAspirationWindow(int aspirationWindow) {
+        this.aspirationWindow = aspirationWindow;
+        return this;
+    }
+
+    /**
+     * @return the number of moves searched at full depth before reductions start
+     */
+    public int getLateMoveThreshold() {
+        return lateMoveThreshold;
+    }
+
+    public SearchOptions setLateMoveThreshold(int lateMoveThreshold) {
+        this.lateMoveThreshold = lateMoveThreshold;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "pvs=" + principalVariationSearch + " aspiration=" + aspirationWindows + " lmr=" + lateMoveReductions;
+    }
+}
@@ -0,0 +1,166 @@
+package com.abalone.model.search;
+
+import com.abalone.model.utils.Trace;
+import com.abalone.model.utils.TraceEvent;
+
+/**
+ * Splits the AI's game clock into per-move soft and hard limits.
+ *
+ * The hard limit is the deadline handed to the Search, so no move takes longer. The soft limit is
+ * the share of the clock the move is expected to use: the remaining time divided by an estimate of
+ * the moves left, which shrinks as the game goes on and as either side nears its last ejections,
+ * plus most of the increment. After each completed iteration the search stops once the elapsed
+ * time passes the soft limit, scaled down while the best move stays the same and up when the
+ * score drops, or when the next iteration could not finish in time.
+ *
+ * The clock is read from -Dabalone.clock=&lt;seconds&gt;[+&lt;increment seconds&gt;].
+ */
+public class TimeManager {
+    /** System property holding the AI's game clock. */
+    public static final String CLOCK_PROPERTY = "abalone.clock";
+
+    private static final long MOVE_OVERHEAD_MILLIS = 30;
+    private static final int MAX_MOVES_TO_GO = 30;
+    private static final int MIN_MOVES_TO_GO = 8;
+    private static final int STABLE_ITERATIONS = 3;
+    private static final int SCORE_DROP = 50;
+    // An iteration takes a few times as long as the one before it.
+    private static final double NEXT_ITERATION_SHARE = 0.6;
+
+    private final long incrementMillis;
+    private long remainingMillis;
+    private long softLimitMillis;
+    private long hardLimitMillis;
+    private long moveStart;
+    private int lastBest;
+    private int lastScore;
+    private int stableIterations;
+    private boolean scoreDropped;
+
+    /**
+     * @param totalMillis the AI's time for the whole game
+     * @param incrementMillis the time added after each AI move
+     */
+    public TimeManager(long totalMillis, long incrementMillis) {
+        this.remainingMillis = totalMillis;
+        this.incrementMillis = incrementMillis;
+    }
+
+    /**
+     * Reads the clock named by the abalone.clock system property.
+     *
+     * @return a time manager, or null if no clock is configured
+     */
+    public static TimeManager configured() {
+        String clock = System.getProperty(CLOCK_PROPERTY);
+        if (clock == null) {
+            return null;
+        }
+        try {
+            String[] parts = clock.split("\\+");
+            double total = Double.parseDouble(parts[0]);
+            double increment = parts.length > 1 ? Double.parseDouble(parts[1]) : 0;
+            return new TimeManager(Math.round(total * 1000), Math.round(increment * 1000));
+        } catch (NumberFormatException e) {
+            Trace.log(TraceEvent.CLOCK_INVALID);
+            return null;
+        }
+    }
+
+    /**
+     * Starts the clock for a move and sets its limits.
+     *
+     * @param moveNumber the number of moves the AI already played
+     * @param ownMarbles the AI's pieces on the board
+     * @param opponentMarbles the opponent's pieces on the board
+     */
+    public void startMove(int moveNumber, int ownMarbles, int opponentMarbles) {
+        moveStart = System.nanoTime();
+        lastBest = -1;
+        stableIterations = 0;
+        scoreDropped = false;
+
+        int movesToGo = Math.max(MIN_MOVES_TO_GO, MAX_MOVES_TO_GO - moveNumber / 4);
+        // Close to the end of the game the remaining moves decide it, so spend the clock now.
+        int ejectionsLeft = Math.min(ownMarbles, opponentMarbles) - 8;
+        if (ejectionsLeft <= 2) {
+            movesToGo = Math.max(MIN_MOVES_TO_GO / 2, movesToGo / 2);
+        }
+        long available = Math.max(0, remainingMillis - MOVE_OVERHEAD_MILLIS);
+        long soft = available / movesToGo + incrementMillis * 3 / 4;
+        // A side behind on material needs the better moves more.
+        if (ownMarbles < opponentMarbles) {
+            soft = soft * 5 / 4;
+        }
+        // The hard limit leaves room for a score drop but never spends a large part of the clock on one move.
+        long hard = Math.max(soft, Math.min(soft * 4, available / 4 + incrementMillis));
+        hardLimitMillis = Math.max(1, Math.min(available, hard));
+        softLimitMillis = Math.max(1, Math.min(soft, hardLimitMillis));
+    }
+
+    /**
+     * Called with every completed iteration.
+     *
+     * @param result the iteration result
+     * @return true if the search should stop now
+     */
+    public boolean onIteration(AnalysisResult result) {
+        if (result.getBestMove() == null) {
+            return false;
+        }
+        int best = result.getBestMove().encode();
+        stableIterations = best == lastBest ? stableIterations + 1 : 0;
+        if (lastBest != -1 && result.getBestScore() < lastScore - SCORE_DROP) {
+            scoreDropped = true;
+        }
+        lastBest = best;
+        lastScore = result.getBestScore();
+
+        double limit = softLimitMillis;
+        if (scoreDropped) {
+            limit *= 2;
+        } else if (stableIterations >= STABLE_ITERATIONS) {
+            limit /= 2;
+        }
+        limit = Math.min(limit, hardLimitMillis);
+        // Stopping early is better than starting an iteration that would run past the limit.
+        return getElapsedMillis() >= NEXT_ITERATION_SHARE * limit;
+    }
+
+    /**
+     * Stops the clock for the move and adds the increment.
+     */
+    public void endMove() {
+        remainingMillis = Math.max(0, remainingMillis - getElapsedMillis()) + incrementMillis;
+    }
+
+    private long getElapsedMillis() {
+        return (System.nanoTime() - moveStart) / 1_000_000;
+    }
+
+    public long getSoftLimitMillis() {
+        return softLimitMillis;
+    }
+
+    public long getHardLimitMillis() {
+        return hardLimitMillis;
+    }
+
+    /**
+     * @return the part of the hard limit not yet used by the current move, at least 1
+     */
+    public long getHardLimitLeftMillis() {
+        return Math.max(1, hardLimitMillis - getElapsedMillis());
+    }
+
+    public long getRemainingMillis() {
+        return remainingMillis;
+    }
+
+    /**
+     * @param remainingMillis the time left on the clock, for a game that is resumed
+     */
+    public void setRemainingMillis(long remainingMillis) {
+        this.remainingMillis = remainingMillis;
+    }
+}
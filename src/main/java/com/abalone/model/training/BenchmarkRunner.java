@@ -0,0 +1,222 @@
+package com.abalone.model.training;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.abalone.model.Board;
+import com.abalone.model.EvaluationWeights;
+import com.abalone.model.StateMachine;
+import com.abalone.model.search.AnalysisResult;
+import com.abalone.model.search.HeuristicEvaluator;
+import com.abalone.model.search.Search;
+import com.abalone.model.search.SearchOptions;
+import com.abalone.model.utils.Move;
+import com.abalone.model.utils.Players.Player;
+
+/**
+ * Runs the benchmark corpus and reports regressions against its recorded expectations.
+ *
+ * Every corpus position is searched to a fixed depth with the default weights, and asked of a
+ * StateMachine seeded with SEED, so both are deterministic. A position regresses when the search
+ * picks a different move or needs more than NODE_TOLERANCE more nodes than recorded, when it runs
+ * over its time budget, or when the StateMachine picks a different move. The corpus is run once
+ * to warm up the JIT before the measured pass.
+ *
+ * Corpus line: AI mask and human mask in hex, side to move ("ai" or "human"), search depth, then
+ * the expected search move, nodes, time budget in ms and StateMachine move ("-" when unknown).
+ *
+ * Usage:
+ *   BenchmarkRunner [corpus]              run, exit status 1 on regressions
+ *   BenchmarkRunner record &lt;out&gt; [corpus]  write the corpus with this build's results
+ */
+public class BenchmarkRunner {
+    /** The corpus shipped with the game. */
+    public static final String CORPUS_RESOURCE = "bench-corpus.txt";
+    public static final long SEED = 1;
+    private static final double NODE_TOLERANCE = 0.10;
+    private static final int BUDGET_FACTOR = 3;
+    private static final long MIN_BUDGET_MILLIS = 50;
+
+    private final SelfPlay players = new SelfPlay();
+
+    /**
+     * One corpus position with its expectations.
+     */
+    static class Entry {
+        long aiMask;
+        long humanMask;
+        boolean aiToMove;
+        int depth;
+        String searchMove;
+        long nodes;
+        long budgetMillis;
+        String stateMachineMove;
+
+        static Entry parse(String line) {
+            String[] fields = line.trim().split("\\s+");
+            Entry entry = new Entry();
+            entry.aiMask = Long.parseUnsignedLong(fields[0], 16);
+            entry.humanMask = Long.parseUnsignedLong(fields[1], 16);
+            entry.aiToMove = fields[2].equals("ai");
+            entry.depth = Integer.parseInt(fields[3]);
+            entry.searchMove = fields.length > 4 ? fields[4] : "-";
+            entry.nodes = fields.length > 5 && !fields[5].equals("-") ? Long.parseLong(fields[5]) : -1;
+            entry.budgetMillis = fields.length > 6 && !fields[6].equals("-") ? Long.parseLong(fields[6]) : -1;
+            entry.stateMachineMove = fields.length > 7 ? fields[7] : "-";
+            return entry;
+        }
+
+        String format() {
+            return Long.toHexString(aiMask) + " " + Long.toHexString(humanMask) + " " + (aiToMove ? "ai" : "human")
+                    + " " + depth + " " + searchMove + " " + (nodes < 0 ? "-" : nodes)
+                    + " " + (budgetMillis < 0 ? "-" : budgetMillis) + " " + stateMachineMove;
+        }
+    }
+
+    /**
+     * Measured behaviour of this build on one entry.
+     */
+    static class Measurement {
+        String searchMove;
+        long nodes;
+        long millis;
+        String stateMachineMove;
+    }
+
+    Measurement measure(Entry entry) {
+        Board board = new Board(players.getAIPlayer(), players.getHumanPlayer(), entry.aiMask, entry.humanMask);
+        Player toMove = entry.aiToMove ? players.getAIPlayer() : players.getHumanPlayer();
+        Search search = new Search(new HeuristicEvaluator(EvaluationWeights.defaults()), SearchOptions.configured());
+        long start = System.nanoTime();
+        AnalysisResult result = search.analyze(board, toMove, 1, entry.depth, 0, null);
+        Measurement measurement = new Measurement();
+        measurement.millis = (System.nanoTime() - start) / 1_000_000;
+        measurement.searchMove = notation(result.getBestMove());
+        measurement.nodes = result.getNodes();
+        StateMachine stateMachine = new StateMachine(EvaluationWeights.defaults(), new Random(SEED));
+        measurement.stateMachineMove = notation(stateMachine.determineAIMove(board, toMove));
+        return measurement;
+    }
+
+    private static String notation(Move move) {
+        return move == null ? "-" : move.toNotation();
+    }
+
+    /**
+     * Runs the corpus and prints one line per position.
+     *
+     * @param entries the corpus
+     * @return the number of regressions
+     */
+    public int run(List<Entry> entries) {
+        for (Entry entry : entries) {
+            measure(entry);
+        }
+        int regressions = 0;
+        long totalNodes = 0;
+        long totalMillis = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            Measurement measurement = measure(entry);
+            totalNodes += measurement.nodes;
+            totalMillis += measurement.millis;
+            List<String> problems = new ArrayList<>();
+            if (!entry.searchMove.equals("-") && !entry.searchMove.equals(measurement.searchMove)) {
+                problems.add("search move " + measurement.searchMove + " instead of " + entry.searchMove);
+            }
+            if (entry.nodes >= 0 && measurement.nodes > entry.nodes * (1 + NODE_TOLERANCE)) {
+                problems.add("nodes " + measurement.nodes + " > " + entry.nodes);
+            }
+            if (entry.budgetMillis >= 0 && measurement.millis > entry.budgetMillis) {
+                problems.add("time " + measurement.millis + "ms > " + entry.budgetMillis + "ms");
+            }
+            if (!entry.stateMachineMove.equals("-") && !entry.stateMachineMove.equals(measurement.stateMachineMove)) {
+                problems.add("StateMachine move " + measurement.stateMachineMove + " instead of " + entry.stateMachineMove);
+            }
+            regressions += problems.isEmpty() ? 0 : 1;
+            System.out.printf("#%-3d depth %d  %-10s %9d nodes %6d ms  %s%n", i + 1, entry.depth, measurement.searchMove,
+                    measurement.nodes, measurement.millis, problems.isEmpty() ? "ok" : "REGRESSION: " + String.join(", ", problems));
+        }
+        System.out.printf("%d positions, %d regressions, %d nodes in %d ms (%d nodes/s)%n", entries.size(), regressions,
+                totalNodes, totalMillis, totalMillis == 0 ? 0 : totalNodes * 1000 / totalMillis);
+        return regressions;
+    }
+
+    /**
+     * Measures the corpus and replaces its expectations with this build's results.
+     *
+     * @param entries the corpus
+     * @return the updated corpus
+     */
+    public List<Entry> record(List<Entry> entries) {
+        for (Entry entry : entries) {
+            measure(entry);
+        }
+        for (Entry entry : entries) {
+            Measurement measurement = measure(entry);
+            entry.searchMove = measurement.searchMove;
+            entry.nodes = measurement.nodes;
+            entry.budgetMillis = Math.max(MIN_BUDGET_MILLIS, (measurement.millis * BUDGET_FACTOR + 9) / 10 * 10);
+            entry.stateMachineMove = measurement.stateMachineMove;
+        }
+        return entries;
+    }
+
+    static List<Entry> load(String path) throws IOException {
+        List<String> lines;
+        if (path != null) {
+            lines = Files.readAllLines(Paths.get(path));
+        } else {
+            try (InputStream in = BenchmarkRunner.class.getResourceAsStream(CORPUS_RESOURCE)) {
+                if (in == null) {
+                    throw new IOException("Missing resource " + CORPUS_RESOURCE);
+                }
+                lines = new ArrayList<>();
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    lines.add(line);
+                }
+            }
+        }
+        List<Entry> entries = new ArrayList<>();
+        for (String line : lines) {
+            if (!line.isBlank() && !line.startsWith("#")) {
+                entries.add(Entry.parse(line));
+            }
+        }
+        return entries;
+    }
+
+    public static void main(String[] args) throws IOException {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        if (args.length > 0 && args[0].equals("record")) {
+            if (args.length < 2) {
+                System.err.println("Usage: BenchmarkRunner record <out> [corpus]");
+                return;
+            }
+            List<Entry> entries = runner.record(load(args.length > 2 ? args[2] : null));
+            List<String> lines = new ArrayList<>();
+            lines.add("# aiMask humanMask toMove depth searchMove nodes budgetMillis stateMachineMove");
+            for (Entry entry : entries) {
+                lines.add(entry.format());
+            }
+            Path out = Paths.get(args[1]);
+            Files.write(out, lines);
+            System.out.println("Recorded " + entries.size() + " positions to " + out);
+            return;
+        }
+        int regressions = runner.run(load(args.length > 0 ? args[0] : null));
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+}
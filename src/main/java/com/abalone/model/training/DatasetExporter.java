@@ -0,0 +1,191 @@
+package com.abalone.model.training;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.abalone.model.Board;
+import com.abalone.model.StateMachine;
+import com.abalone.model.utils.Move;
+import com.abalone.model.utils.Players.Player;
+
+/**
+ * Exports labelled positions for offline evaluation tuning.
+ * Positions come either from self-play or from game records, and every position is labelled with
+ * the engine score of the chosen move and the final game result. Work is spread over all cores and
+ * each worker buffers one game in primitive arrays before copying it into the mapped output file.
+ *
+ * Usage:
+ *   DatasetExporter selfplay &lt;out&gt; &lt;positions&gt; [maxPlies]
+ *   DatasetExporter records &lt;out&gt; &lt;games.txt&gt;
+ *
+ * A game record is one line of space separated moves in Move notation ("from-to", or
+ * "from-to-groupEnd" for broadside moves), starting with the AI side.
+ */
+public class DatasetExporter {
+    private static final int DEFAULT_MAX_PLIES = 200;
+
+    private final PositionDatasetWriter writer;
+    private final int threads;
+
+    public DatasetExporter(PositionDatasetWriter writer, int threads) {
+        this.writer = writer;
+        this.threads = threads;
+    }
+
+    /**
+     * Plays self-play games on all worker threads until the output file is full.
+     *
+     * @param maxPlies the ply limit per game
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public void exportSelfPlay(int maxPlies) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                SelfPlay selfPlay = new SelfPlay();
+                StateMachine aiEngine = new StateMachine();
+                StateMachine humanEngine = new StateMachine();
+                GameBuffer game = new GameBuffer(maxPlies, selfPlay.getAIPlayer());
+                boolean full = false;
+                while (!full && !Thread.currentThread().isInterrupted()) {
+                    game.reset();
+                    int result = selfPlay.playGame(aiEngine, humanEngine, maxPlies, game);
+                    full = !game.flush(writer, result);
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+    }
+
+    /**
+     * Replays recorded games on all worker threads and labels every position with a fresh engine score.
+     *
+     * @param games the game records, one game per entry
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public void exportRecords(List<String> games) throws InterruptedException {
+        AtomicInteger nextGame = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                SelfPlay players = new SelfPlay();
+                StateMachine engine = new StateMachine();
+                int index;
+                while ((index = nextGame.getAndIncrement()) < games.size()) {
+                    String[] moves = games.get(index).trim().split("\\s+");
+                    GameBuffer game = new GameBuffer(moves.length, players.getAIPlayer());
+                    Board board = new Board(players.getAIPlayer(), players.getHumanPlayer());
+                    Player toMove = players.getAIPlayer();
+                    for (int ply = 0; ply < moves.length && !moves[ply].isEmpty(); ply++) {
+                        Move move = Move.parse(moves[ply]);
+                        if (!board.isValidMove(move)) {
+                            break;
+                        }
+                        engine.determineAIMove(board, toMove);
+                        game.onPly(board, toMove, ply, move, engine.getLastBestScore());
+                        board.applyMove(move);
+                        toMove = board.opponentPlayer(toMove);
+                    }
+                    if (!game.flush(writer, SelfPlay.resultOf(board))) {
+                        return;
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+    }
+
+    /**
+     * Collects the positions of one game until its result is known.
+     */
+    private static class GameBuffer implements SelfPlay.PlyListener {
+        private final long[] aiMasks;
+        private final long[] humanMasks;
+        private final int[] scores;
+        private final short[] plies;
+        private final byte[] sides;
+        private final Player aiPlayer;
+        private int count;
+
+        GameBuffer(int maxPlies, Player aiPlayer) {
+            aiMasks = new long[maxPlies];
+            humanMasks = new long[maxPlies];
+            scores = new int[maxPlies];
+            plies = new short[maxPlies];
+            sides = new byte[maxPlies];
+            this.aiPlayer = aiPlayer;
+        }
+
+        void reset() {
+            count = 0;
+        }
+
+        @Override
+        public void onPly(Board board, Player toMove, int ply, Move move, int score) {
+            aiMasks[count] = board.getOccupancyMask(board.getAIPlayer());
+            humanMasks[count] = board.getOccupancyMask(board.getHumanPlayer());
+            scores[count] = score;
+            plies[count] = (short) ply;
+            sides[count] = (byte) (toMove == aiPlayer ? PositionDataset.SIDE_AI : PositionDataset.SIDE_HUMAN);
+            count++;
+        }
+
+        /**
+         * Copies the buffered positions into the writer.
+         * @return false if the writer had no room left for this game
+         */
+        boolean flush(PositionDatasetWriter writer, int result) {
+            if (count == 0) {
+                return true;
+            }
+            long slot = writer.reserve(count);
+            if (slot < 0) {
+                return false;
+            }
+            for (int i = 0; i < count; i++) {
+                writer.write(slot + i, aiMasks[i], humanMasks[i], sides[i], plies[i], scores[i], result);
+            }
+            return true;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 3) {
+            System.err.println("Usage: DatasetExporter selfplay <out> <positions> [maxPlies]");
+            System.err.println("       DatasetExporter records <out> <games.txt>");
+            return;
+        }
+        Path out = Paths.get(args[1]);
+        int threads = Runtime.getRuntime().availableProcessors();
+        long start = System.nanoTime();
+        long written;
+        if (args[0].equals("records")) {
+            List<String> games = Files.readAllLines(Paths.get(args[2]));
+            long capacity = 0;
+            for (String game : games) {
+                capacity += game.trim().split("\\s+").length;
+            }
+            try (PositionDatasetWriter writer = new PositionDatasetWriter(out, Math.max(1, capacity))) {
+                new DatasetExporter(writer, threads).exportRecords(games);
+                written = writer.size();
+            }
+        } else {
+            int maxPlies = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_MAX_PLIES;
+            try (PositionDatasetWriter writer = new PositionDatasetWriter(out, Long.parseLong(args[2]))) {
+                new DatasetExporter(writer, threads).exportSelfPlay(maxPlies);
+                written = writer.size();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Wrote %d positions in %.1fs (%.0f positions/minute)%n", written, seconds, written * 60 / seconds);
+    }
+}
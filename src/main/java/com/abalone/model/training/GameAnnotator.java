@@ -0,0 +1,81 @@
+package com.abalone.model.training;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.abalone.model.Board;
+import com.abalone.model.search.AnalysisLine;
+import com.abalone.model.search.AnalysisResult;
+import com.abalone.model.search.Search;
+import com.abalone.model.utils.Move;
+import com.abalone.model.utils.Players.Player;
+
+/**
+ * Annotates recorded games with the k best moves of every position, one game per core.
+ *
+ * Usage: GameAnnotator &lt;games.txt&gt; [k] [depth]
+ *
+ * Game records use the DatasetExporter format. For every ply the output shows the move played
+ * followed by the analysed lines.
+ */
+public class GameAnnotator {
+
+    /**
+     * Annotates one game.
+     *
+     * @param game the game record
+     * @param multiPv the number of lines per position
+     * @param depth the search depth
+     * @return the annotation text
+     */
+    public static String annotate(String game, int multiPv, int depth) {
+        SelfPlay players = new SelfPlay();
+        Board board = new Board(players.getAIPlayer(), players.getHumanPlayer());
+        Player toMove = players.getAIPlayer();
+        Search search = new Search();
+        StringBuilder sb = new StringBuilder();
+        String[] moves = game.trim().split("\\s+");
+        for (int ply = 0; ply < moves.length && !moves[ply].isEmpty(); ply++) {
+            Move move = Move.parse(moves[ply]);
+            if (!board.isValidMove(move)) {
+                sb.append(ply + 1).append(". ").append(moves[ply]).append(" is not a legal move\n");
+                break;
+            }
+            AnalysisResult result = search.analyze(board, toMove, multiPv, depth, 0, null);
+            sb.append(ply + 1).append(". ").append(moves[ply]).append('\n');
+            for (AnalysisLine line : result.getLines()) {
+                sb.append("    ").append(line).append('\n');
+            }
+            board.applyMove(move);
+            toMove = board.opponentPlayer(toMove);
+        }
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        if (args.length < 1) {
+            System.err.println("Usage: GameAnnotator <games.txt> [k] [depth]");
+            return;
+        }
+        List<String> games = Files.readAllLines(Paths.get(args[0]));
+        int multiPv = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        List<Future<String>> annotations = new ArrayList<>();
+        for (String game : games) {
+            annotations.add(pool.submit(() -> annotate(game, multiPv, depth)));
+        }
+        for (int i = 0; i < annotations.size(); i++) {
+            System.out.println("Game " + (i + 1));
+            System.out.print(annotations.get(i).get());
+        }
+        pool.shutdown();
+    }
+}
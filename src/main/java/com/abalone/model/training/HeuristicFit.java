@@ -0,0 +1,80 @@
+package com.abalone.model.training;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import com.abalone.model.EvaluationWeights;
+import com.abalone.model.search.BatchEvaluator;
+import com.abalone.model.search.HeuristicEvaluator;
+
+/**
+ * Measures how well the heuristic evaluation predicts the results of a labelled dataset, to
+ * compare weight sets without playing games.
+ *
+ * Every position is scored from the side to move's point of view with the BatchEvaluator, one
+ * chunk at a time. The report gives the mean squared error between sigmoid(score / 400) and the
+ * result (1 win, 0.5 draw, 0 loss) and how often the sign of the score matches a decided result.
+ * Every CHECK_INTERVAL-th position is also scored with HeuristicEvaluator; the tool exits with
+ * status 1 if the two ever disagree.
+ *
+ * Usage: HeuristicFit &lt;dataset&gt; [weights file]
+ */
+public class HeuristicFit {
+    private static final int CHUNK = 1 << 20;
+    private static final int CHECK_INTERVAL = 997;
+    private static final double SCORE_SCALE = 400;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: HeuristicFit <dataset> [weights file]");
+            return;
+        }
+        EvaluationWeights weights = args.length > 1 ? EvaluationWeights.load(Paths.get(args[1])) : EvaluationWeights.defaults();
+        BatchEvaluator batch = new BatchEvaluator(weights);
+        HeuristicEvaluator reference = new HeuristicEvaluator(weights);
+        long[] positions = new long[2 * CHUNK];
+        int[] results = new int[CHUNK];
+        int[] scores = new int[CHUNK];
+        double error = 0;
+        long decided = 0;
+        long agreeing = 0;
+        long mismatches = 0;
+        long start = System.nanoTime();
+        long size;
+        try (PositionDataset data = new PositionDataset(Paths.get(args[0]))) {
+            size = data.size();
+            for (long first = 0; first < size; first += CHUNK) {
+                int count = (int) Math.min(CHUNK, size - first);
+                for (int i = 0; i < count; i++) {
+                    long record = first + i;
+                    boolean aiToMove = data.getSideToMove(record) == PositionDataset.SIDE_AI;
+                    positions[2 * i] = aiToMove ? data.getAIMask(record) : data.getHumanMask(record);
+                    positions[2 * i + 1] = aiToMove ? data.getHumanMask(record) : data.getAIMask(record);
+                    results[i] = aiToMove ? data.getResult(record) : -data.getResult(record);
+                }
+                long[] chunk = count == CHUNK ? positions : Arrays.copyOf(positions, 2 * count);
+                batch.evaluate(chunk, scores);
+                for (int i = 0; i < count; i++) {
+                    double diff = 1 / (1 + Math.exp(-scores[i] / SCORE_SCALE)) - (results[i] + 1) / 2.0;
+                    error += diff * diff;
+                    if (results[i] != 0) {
+                        decided++;
+                        agreeing += Integer.signum(scores[i]) == results[i] ? 1 : 0;
+                    }
+                    if ((first + i) % CHECK_INTERVAL == 0
+                            && scores[i] != reference.evaluate(positions[2 * i], positions[2 * i + 1])) {
+                        mismatches++;
+                    }
+                }
+            }
+        }
+        System.out.printf("%d positions in %.2fs: mse %.5f, sign agrees with %d of %d decided results (%.1f%%)%n",
+                size, (System.nanoTime() - start) / 1e9, size > 0 ? error / size : 0, agreeing, decided,
+                decided > 0 ? 100.0 * agreeing / decided : 0);
+        if (mismatches > 0) {
+            System.out.println(mismatches + " batch scores differ from HeuristicEvaluator");
+            System.exit(1);
+        }
+    }
+}
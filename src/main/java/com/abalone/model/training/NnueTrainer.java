@@ -0,0 +1,190 @@
+package com.abalone.model.training;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import com.abalone.model.search.NnueNetwork;
+
+/**
+ * Trains an NnueNetwork on a PositionDataset.
+ * The network is fitted in floating point with plain SGD, then quantized to the int16 layout the
+ * NnueEvaluator reads. The target of every position mixes the game result with the engine score,
+ * both seen from the side to move and mapped to a win probability.
+ *
+ * Usage: NnueTrainer &lt;dataset&gt; &lt;out&gt; [epochs] [hidden] [resultWeight]
+ */
+public class NnueTrainer {
+    private static final float LEARNING_RATE = 0.01f;
+
+    private final int hidden;
+    private final float[] inputWeights;
+    private final float[] hiddenBiases;
+    private final float[] outputWeights;
+    private float outputBias;
+
+    public NnueTrainer(int hidden, long seed) {
+        this.hidden = hidden;
+        Random random = new Random(seed);
+        inputWeights = new float[NnueNetwork.INPUTS * hidden];
+        hiddenBiases = new float[hidden];
+        outputWeights = new float[2 * hidden];
+        for (int i = 0; i < inputWeights.length; i++) {
+            inputWeights[i] = (float) (random.nextGaussian() * 0.1);
+        }
+        for (int i = 0; i < outputWeights.length; i++) {
+            outputWeights[i] = (float) (random.nextGaussian() * 0.1);
+        }
+        for (int h = 0; h < hidden; h++) {
+            hiddenBiases[h] = 0.5f;
+        }
+    }
+
+    /**
+     * Runs one pass over the dataset in random order.
+     *
+     * @param data the dataset
+     * @param resultWeight share of the game result in the target, the rest being the engine score
+     * @param random source of the record order
+     * @return the mean squared error of the pass
+     */
+    public double epoch(PositionDataset data, double resultWeight, Random random) {
+        int size = (int) data.size();
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+        int[] own = new int[28];
+        int[] opp = new int[28];
+        float[] ownHidden = new float[hidden];
+        float[] oppHidden = new float[hidden];
+        double error = 0;
+        for (int record : order) {
+            boolean aiToMove = data.getSideToMove(record) == PositionDataset.SIDE_AI;
+            long ownMask = aiToMove ? data.getAIMask(record) : data.getHumanMask(record);
+            long oppMask = aiToMove ? data.getHumanMask(record) : data.getAIMask(record);
+            int result = aiToMove ? data.getResult(record) : -data.getResult(record);
+            double target = resultWeight * (result + 1) / 2.0
+                    + (1 - resultWeight) * sigmoid(data.getScore(record) / (double) NnueNetwork.EVAL_SCALE);
+
+            // The own accumulator sees own pieces as features 0..60, the other one sees them as 61..121.
+            int ownCount = features(ownMask, oppMask, own);
+            int oppCount = features(oppMask, ownMask, opp);
+            accumulate(own, ownCount, ownHidden);
+            accumulate(opp, oppCount, oppHidden);
+            double output = outputBias;
+            for (int h = 0; h < hidden; h++) {
+                output += clamp(ownHidden[h]) * outputWeights[h] + clamp(oppHidden[h]) * outputWeights[hidden + h];
+            }
+            double prediction = sigmoid(output);
+            double diff = prediction - target;
+            error += diff * diff;
+
+            float gradient = (float) (diff * prediction * (1 - prediction) * LEARNING_RATE);
+            outputBias -= gradient;
+            for (int h = 0; h < hidden; h++) {
+                float ownGradient = active(ownHidden[h]) ? gradient * outputWeights[h] : 0;
+                float oppGradient = active(oppHidden[h]) ? gradient * outputWeights[hidden + h] : 0;
+                outputWeights[h] -= gradient * clamp(ownHidden[h]);
+                outputWeights[hidden + h] -= gradient * clamp(oppHidden[h]);
+                hiddenBiases[h] -= ownGradient + oppGradient;
+                for (int i = 0; i < ownCount; i++) {
+                    inputWeights[own[i] * hidden + h] -= ownGradient;
+                }
+                for (int i = 0; i < oppCount; i++) {
+                    inputWeights[opp[i] * hidden + h] -= oppGradient;
+                }
+            }
+        }
+        return size == 0 ? 0 : error / size;
+    }
+
+    private static int features(long own, long opp, int[] out) {
+        int count = 0;
+        for (long m = own; m != 0 && count < out.length; m &= m - 1) {
+            out[count++] = Long.numberOfTrailingZeros(m);
+        }
+        for (long m = opp; m != 0 && count < out.length; m &= m - 1) {
+            out[count++] = NnueNetwork.CELLS + Long.numberOfTrailingZeros(m);
+        }
+        return count;
+    }
+
+    private void accumulate(int[] features, int count, float[] out) {
+        System.arraycopy(hiddenBiases, 0, out, 0, hidden);
+        for (int i = 0; i < count; i++) {
+            int offset = features[i] * hidden;
+            for (int h = 0; h < hidden; h++) {
+                out[h] += inputWeights[offset + h];
+            }
+        }
+    }
+
+    private static float clamp(float value) {
+        return Math.min(Math.max(value, 0f), 1f);
+    }
+
+    private static boolean active(float value) {
+        return value > 0f && value < 1f;
+    }
+
+    private static double sigmoid(double x) {
+        return 1 / (1 + Math.exp(-x));
+    }
+
+    /**
+     * Quantizes the trained weights. Hidden values are scaled by ACTIVATION_MAX and output weights
+     * by OUTPUT_SCALE, so the integer output divided by both is the logit the network was trained on.
+     *
+     * @return the quantized network
+     */
+    public NnueNetwork quantize() {
+        short[] w1 = new short[inputWeights.length];
+        for (int i = 0; i < w1.length; i++) {
+            w1[i] = toShort(inputWeights[i] * NnueNetwork.ACTIVATION_MAX);
+        }
+        short[] b1 = new short[hidden];
+        for (int h = 0; h < hidden; h++) {
+            b1[h] = toShort(hiddenBiases[h] * NnueNetwork.ACTIVATION_MAX);
+        }
+        short[] w2 = new short[outputWeights.length];
+        for (int i = 0; i < w2.length; i++) {
+            w2[i] = toShort(outputWeights[i] * NnueNetwork.OUTPUT_SCALE);
+        }
+        int b2 = Math.round(outputBias * NnueNetwork.ACTIVATION_MAX * NnueNetwork.OUTPUT_SCALE);
+        return new NnueNetwork(hidden, w1, b1, w2, b2);
+    }
+
+    private static short toShort(float value) {
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(value)));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: NnueTrainer <dataset> <out> [epochs] [hidden] [resultWeight]");
+            return;
+        }
+        Path out = Paths.get(args[1]);
+        int epochs = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int hidden = args.length > 3 ? Integer.parseInt(args[3]) : 32;
+        double resultWeight = args.length > 4 ? Double.parseDouble(args[4]) : 0.5;
+
+        NnueTrainer trainer = new NnueTrainer(hidden, 1);
+        Random random = new Random(2);
+        try (PositionDataset data = new PositionDataset(Paths.get(args[0]))) {
+            for (int epoch = 0; epoch < epochs; epoch++) {
+                double error = trainer.epoch(data, resultWeight, random);
+                System.out.printf("Epoch %d: mse %.5f%n", epoch, error);
+                // Save after every epoch so a long run can be stopped at any time.
+                trainer.quantize().save(out);
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.abalone.model.training;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.abalone.model.Board;
+import com.abalone.model.BoardSymmetry;
+import com.abalone.model.OpeningBook;
+import com.abalone.model.StateMachine;
+import com.abalone.model.utils.Move;
+import com.abalone.model.utils.Players.Player;
+
+/**
+ * Builds or grows an opening book from self-play games or game records.
+ * Every move played in the first plies of a game adds to the weight of its (position, move)
+ * entry, with a bonus when the side that played it went on to win. Entries of an existing book
+ * are loaded first, so repeated runs grow the same book.
+ *
+ * Usage:
+ *   OpeningBookBuilder selfplay &lt;book&gt; &lt;games&gt; [bookPlies] [maxPlies]
+ *   OpeningBookBuilder records &lt;book&gt; &lt;games.txt&gt; [bookPlies]
+ *
+ * Game records use the DatasetExporter format.
+ */
+public class OpeningBookBuilder {
+    private static final int WIN_BONUS = 2;
+
+    // canonical key -> packed canonical move (Move.encode) -> weight
+    private final Map<Long, Map<Integer, Integer>> entries = new TreeMap<>();
+    private final int bookPlies;
+
+    public OpeningBookBuilder(int bookPlies) {
+        this.bookPlies = bookPlies;
+    }
+
+    /**
+     * Loads the entries of an existing book so that new games add to them.
+     *
+     * @param path the book file
+     * @throws IOException if the book cannot be read
+     */
+    public void load(Path path) throws IOException {
+        OpeningBook book = OpeningBook.open(path);
+        for (int i = 0; i < book.size(); i++) {
+            add(book.keyAt(i), new Move(book.fromAt(i), book.toAt(i), book.groupEndAt(i)).encode(), book.weightAt(i));
+        }
+    }
+
+    /**
+     * Plays self-play games on all cores and adds their opening moves.
+     *
+     * @param games the number of games
+     * @param maxPlies the ply limit per game
+     * @throws InterruptedException if interrupted while waiting for the games
+     */
+    public void addSelfPlay(int games, int maxPlies) throws InterruptedException {
+        AtomicInteger remaining = new AtomicInteger(games);
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                SelfPlay selfPlay = new SelfPlay();
+                StateMachine aiEngine = new StateMachine();
+                StateMachine humanEngine = new StateMachine();
+                while (remaining.getAndDecrement() > 0) {
+                    List<long[]> opening = new ArrayList<>();
+                    int result = selfPlay.playGame(aiEngine, humanEngine, maxPlies, (board, toMove, ply, move, score) -> {
+                        if (ply < bookPlies) {
+                            opening.add(canonicalEntry(board, toMove, move));
+                        }
+                    });
+                    addGame(opening, result);
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+    }
+
+    /**
+     * Replays recorded games and adds their opening moves.
+     *
+     * @param games the game records, one game per entry
+     */
+    public void addRecords(List<String> games) {
+        SelfPlay players = new SelfPlay();
+        for (String game : games) {
+            Board board = new Board(players.getAIPlayer(), players.getHumanPlayer());
+            Player toMove = players.getAIPlayer();
+            List<long[]> opening = new ArrayList<>();
+            String[] moves = game.trim().split("\\s+");
+            for (int ply = 0; ply < moves.length && !moves[ply].isEmpty(); ply++) {
+                Move move = Move.parse(moves[ply]);
+                if (!board.isValidMove(move)) {
+                    break;
+                }
+                if (ply < bookPlies) {
+                    opening.add(canonicalEntry(board, toMove, move));
+                }
+                board.applyMove(move);
+                toMove = board.opponentPlayer(toMove);
+            }
+            addGame(opening, SelfPlay.resultOf(board));
+        }
+    }
+
+    /**
+     * @return {canonical key, canonical move, 1 if the AI moved}
+     */
+    private static long[] canonicalEntry(Board board, Player toMove, Move move) {
+        int t = board.getCanonicalTransform(toMove);
+        int canonicalMove = BoardSymmetry.transformMove(t, move).encode();
+        return new long[]{board.getCanonicalKey(toMove), canonicalMove, toMove == board.getAIPlayer() ? 1 : 0};
+    }
+
+    private synchronized void addGame(List<long[]> opening, int result) {
+        for (long[] entry : opening) {
+            boolean aiMoved = entry[2] == 1;
+            boolean won = aiMoved ? result == SelfPlay.AI_WIN : result == SelfPlay.HUMAN_WIN;
+            add(entry[0], (int) entry[1], won ? 1 + WIN_BONUS : 1);
+        }
+    }
+
+    private synchronized void add(long key, int move, int weight) {
+        entries.computeIfAbsent(key, k -> new TreeMap<>()).merge(move, weight, (a, b) -> (int) Math.min(Integer.MAX_VALUE, (long) a + b));
+    }
+
+    /**
+     * Writes the book sorted by key, with the moves of each position by descending weight.
+     *
+     * @param path the book file
+     * @return the number of records written
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized int write(Path path) throws IOException {
+        int count = 0;
+        for (Map<Integer, Integer> moves : entries.values()) {
+            count += moves.size();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(OpeningBook.HEADER_SIZE + count * OpeningBook.RECORD_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(OpeningBook.MAGIC).putInt(OpeningBook.VERSION).putLong(count);
+        // TreeMap orders keys as signed longs, which is the order the binary search expects.
+        for (Map.Entry<Long, Map<Integer, Integer>> entry : entries.entrySet()) {
+            List<Map.Entry<Integer, Integer>> moves = new ArrayList<>(entry.getValue().entrySet());
+            moves.sort((a, b) -> b.getValue() - a.getValue());
+            for (Map.Entry<Integer, Integer> move : moves) {
+                Move canonical = Move.decode(move.getKey());
+                buffer.putLong(entry.getKey())
+                      .put((byte) canonical.getFrom())
+                      .put((byte) canonical.getTo())
+                      .put((byte) (canonical.getGroupEnd() + 1))
+                      .put((byte) 0)
+                      .putInt(move.getValue());
+            }
+        }
+        buffer.flip();
+        Path temp = Paths.get(path + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        return count;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 3) {
+            System.err.println("Usage: OpeningBookBuilder selfplay <book> <games> [bookPlies] [maxPlies]");
+            System.err.println("       OpeningBookBuilder records <book> <games.txt> [bookPlies]");
+            return;
+        }
+        Path book = Paths.get(args[1]);
+        int bookPlies = args.length > 3 ? Integer.parseInt(args[3]) : 12;
+        OpeningBookBuilder builder = new OpeningBookBuilder(bookPlies);
+        if (Files.exists(book)) {
+            builder.load(book);
+        }
+        if (args[0].equals("records")) {
+            builder.addRecords(Files.readAllLines(Paths.get(args[2])));
+        } else {
+            int maxPlies = args.length > 4 ? Integer.parseInt(args[4]) : 200;
+            builder.addSelfPlay(Integer.parseInt(args[2]), maxPlies);
+        }
+        System.out.println("Wrote " + builder.write(book) + " book entries to " + book);
+    }
+}
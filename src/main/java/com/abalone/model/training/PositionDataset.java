@@ -0,0 +1,91 @@
+package com.abalone.model.training;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only, memory-mapped view of a labelled position file.
+ *
+ * File layout (little endian):
+ * header  - int magic, int version, int recordSize, int reserved, long recordCount
+ * record  - long aiMask, long humanMask, int score, short ply, byte sideToMove, byte result
+ *
+ * sideToMove is 0 for the AI and 1 for the human, result is 1 (AI won), 0 (draw) or -1 (human won),
+ * and score is the engine score of the chosen move from the side to move's point of view.
+ * Records are read in place, so scanning a dataset allocates nothing per record.
+ */
+public class PositionDataset implements Closeable {
+    public static final int MAGIC = 0x444C4241; // "ABLD"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 24;
+    public static final int RECORD_SIZE = 24;
+    public static final int SIDE_AI = 0;
+    public static final int SIDE_HUMAN = 1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long size;
+
+    /**
+     * Maps the given dataset file.
+     *
+     * @param path the dataset file
+     * @throws IOException if the file cannot be read or is not a dataset
+     */
+    public PositionDataset(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (channel.size() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                || buffer.getInt(8) != RECORD_SIZE) {
+            channel.close();
+            throw new IOException("Not a position dataset: " + path);
+        }
+        size = Math.min(buffer.getLong(16), (channel.size() - HEADER_SIZE) / RECORD_SIZE);
+    }
+
+    /**
+     * @return the number of records in the file
+     */
+    public long size() {
+        return size;
+    }
+
+    public long getAIMask(long record) {
+        return buffer.getLong(offset(record));
+    }
+
+    public long getHumanMask(long record) {
+        return buffer.getLong(offset(record) + 8);
+    }
+
+    public int getScore(long record) {
+        return buffer.getInt(offset(record) + 16);
+    }
+
+    public int getPly(long record) {
+        return buffer.getShort(offset(record) + 20);
+    }
+
+    public int getSideToMove(long record) {
+        return buffer.get(offset(record) + 22);
+    }
+
+    public int getResult(long record) {
+        return buffer.get(offset(record) + 23);
+    }
+
+    private int offset(long record) {
+        return (int) (HEADER_SIZE + record * RECORD_SIZE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,115 @@
+package com.abalone.model.training;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.abalone.model.training.PositionDataset.HEADER_SIZE;
+import static com.abalone.model.training.PositionDataset.RECORD_SIZE;
+
+/**
+ * Writes fixed-width position records into a memory-mapped file (see PositionDataset for the layout).
+ * Writers on several threads reserve disjoint slot ranges and then fill them in place,
+ * so writing a record allocates nothing and takes no lock.
+ */
+public class PositionDatasetWriter implements Closeable {
+    private static final long MAX_CAPACITY = (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long capacity;
+    private final AtomicLong reserved = new AtomicLong();
+
+    /**
+     * Creates (or truncates) the file and maps room for the given number of records.
+     *
+     * @param path the output file
+     * @param capacity the maximum number of records
+     * @throws IOException if the file cannot be created
+     */
+    public PositionDatasetWriter(Path path, long capacity) throws IOException {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + MAX_CAPACITY);
+        }
+        this.capacity = capacity;
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + capacity * RECORD_SIZE);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, PositionDataset.MAGIC);
+        buffer.putInt(4, PositionDataset.VERSION);
+        buffer.putInt(8, RECORD_SIZE);
+        buffer.putInt(12, 0);
+        buffer.putLong(16, 0L);
+    }
+
+    /**
+     * Reserves a contiguous range of record slots.
+     *
+     * @param count the number of records to reserve
+     * @return the first reserved slot, or -1 if the file is full
+     */
+    public long reserve(int count) {
+        while (true) {
+            long first = reserved.get();
+            if (first + count > capacity) {
+                return -1;
+            }
+            if (reserved.compareAndSet(first, first + count)) {
+                return first;
+            }
+        }
+    }
+
+    /**
+     * Writes one record into a previously reserved slot.
+     *
+     * @param slot the slot index
+     * @param aiMask occupancy mask of the AI pieces
+     * @param humanMask occupancy mask of the human pieces
+     * @param sideToMove PositionDataset.SIDE_AI or SIDE_HUMAN
+     * @param ply the ply number of the position
+     * @param score the engine score from the side to move's point of view
+     * @param result the game result from the AI's point of view
+     */
+    public void write(long slot, long aiMask, long humanMask, int sideToMove, int ply, int score, int result) {
+        int offset = (int) (HEADER_SIZE + slot * RECORD_SIZE);
+        buffer.putLong(offset, aiMask);
+        buffer.putLong(offset + 8, humanMask);
+        buffer.putInt(offset + 16, score);
+        buffer.putShort(offset + 20, (short) ply);
+        buffer.put(offset + 22, (byte) sideToMove);
+        buffer.put(offset + 23, (byte) result);
+    }
+
+    /**
+     * @return the number of records reserved so far
+     */
+    public long size() {
+        return Math.min(reserved.get(), capacity);
+    }
+
+    /**
+     * @return the maximum number of records
+     */
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Stores the record count, flushes the mapping and trims the unused tail of the file.
+     */
+    @Override
+    public void close() throws IOException {
+        long count = size();
+        buffer.putLong(16, count);
+        buffer.force();
+        channel.truncate(HEADER_SIZE + count * RECORD_SIZE);
+        channel.close();
+    }
+}
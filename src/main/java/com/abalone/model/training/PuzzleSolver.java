@@ -0,0 +1,59 @@
+package com.abalone.model.training;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.abalone.model.Board;
+import com.abalone.model.search.ProofNumberSearch;
+import com.abalone.model.utils.Players.Player;
+
+/**
+ * Solves a file of ejection puzzles with the proof-number search, using all cores for each puzzle.
+ *
+ * Each puzzle is one line: AI mask and human mask in hex, the side to move ("ai" or "human"),
+ * the number of ejections to force and the ply limit. Lines starting with # are skipped.
+ *
+ * Usage: PuzzleSolver &lt;puzzles.txt&gt; [nodeLimit] [tableBits]
+ */
+public class PuzzleSolver {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: PuzzleSolver <puzzles.txt> [nodeLimit] [tableBits]");
+            return;
+        }
+        long nodeLimit = args.length > 1 ? Long.parseLong(args[1]) : 10_000_000;
+        int tableBits = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        List<String> lines = Files.readAllLines(Paths.get(args[0]));
+        SelfPlay players = new SelfPlay();
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        int solved = 0;
+        int total = 0;
+        long start = System.nanoTime();
+        try {
+            for (String line : lines) {
+                String[] fields = line.trim().split("\\s+");
+                if (fields.length < 5 || fields[0].startsWith("#")) {
+                    continue;
+                }
+                Board board = new Board(players.getAIPlayer(), players.getHumanPlayer(),
+                        Long.parseUnsignedLong(fields[0], 16), Long.parseUnsignedLong(fields[1], 16));
+                Player attacker = fields[2].equals("ai") ? players.getAIPlayer() : players.getHumanPlayer();
+                ProofNumberSearch.Result result = ProofNumberSearch.solveParallel(board, attacker,
+                        Integer.parseInt(fields[3]), Integer.parseInt(fields[4]), nodeLimit, pool, tableBits);
+                total++;
+                if (result.getStatus() != ProofNumberSearch.Status.UNKNOWN) {
+                    solved++;
+                }
+                System.out.println(line.trim() + " -> " + result);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        System.out.printf("Solved %d of %d puzzles in %.1fs%n", solved, total, (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,88 @@
+package com.abalone.model.training;
+
+import com.abalone.model.Board;
+import com.abalone.model.StateMachine;
+import com.abalone.model.utils.Move;
+import com.abalone.model.utils.Players.Player;
+
+/**
+ * Plays engine-against-engine games on a private Board.
+ * Used to generate training positions and to compare evaluation weights.
+ */
+public class SelfPlay {
+    public static final int AI_WIN = 1;
+    public static final int DRAW = 0;
+    public static final int HUMAN_WIN = -1;
+
+    /**
+     * Called once per ply, before the chosen move is applied.
+     */
+    public interface PlyListener {
+        /**
+         * @param board the board before the move
+         * @param toMove the player about to move
+         * @param ply the ply number, starting at 0
+         * @param move the move the engine chose
+         * @param score the score the engine gave to its chosen move
+         */
+        void onPly(Board board, Player toMove, int ply, Move move, int score);
+    }
+
+    private final Player aiPlayer;
+    private final Player humanPlayer;
+
+    public SelfPlay() {
+        this.aiPlayer = new Player("AI");
+        this.humanPlayer = new Player("Human");
+    }
+
+    /**
+     * Plays a single game from the starting position. The AI side moves first.
+     *
+     * @param aiEngine the engine playing the AI pieces
+     * @param humanEngine the engine playing the human pieces
+     * @param maxPlies the ply limit after which the game is scored as a draw
+     * @param listener the ply listener, or null
+     * @return AI_WIN, HUMAN_WIN or DRAW
+     */
+    public int playGame(StateMachine aiEngine, StateMachine humanEngine, int maxPlies, PlyListener listener) {
+        Board board = new Board(aiPlayer, humanPlayer);
+        Player toMove = aiPlayer;
+        for (int ply = 0; ply < maxPlies; ply++) {
+            StateMachine engine = toMove == aiPlayer ? aiEngine : humanEngine;
+            Move move = engine.determineAIMove(board, toMove);
+            if (move == null) {
+                // The side to move is blocked, which counts as a loss.
+                return toMove == aiPlayer ? HUMAN_WIN : AI_WIN;
+            }
+            if (listener != null) {
+                listener.onPly(board, toMove, ply, move, engine.getLastBestScore());
+            }
+            board.applyMove(move);
+            int result = resultOf(board);
+            if (result != DRAW) {
+                return result;
+            }
+            toMove = board.opponentPlayer(toMove);
+        }
+        return DRAW;
+    }
+
+    /**
+     * @param board the board to score
+     * @return AI_WIN or HUMAN_WIN if one side has 8 or fewer pieces, DRAW otherwise
+     */
+    public static int resultOf(Board board) {
+        if (board.getMarbleCount(board.getHumanPlayer()) <= 8) return AI_WIN;
+        if (board.getMarbleCount(board.getAIPlayer()) <= 8) return HUMAN_WIN;
+        return DRAW;
+    }
+
+    public Player getAIPlayer() {
+        return aiPlayer;
+    }
+
+    public Player getHumanPlayer() {
+        return humanPlayer;
+    }
+}
@@ -0,0 +1,41 @@
+package com.abalone.model.training;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import com.abalone.model.ShadowValidator;
+
+/**
+ * Replays the divergences recorded in shadow mode against the current build and reports which
+ * of them still reproduce.
+ *
+ * Usage:
+ *   ShadowReplay [divergences]    (shadow-divergences.txt by default)
+ */
+public class ShadowReplay {
+
+    public static void main(String[] args) throws IOException {
+        List<String> records = Files.readAllLines(Paths.get(args.length > 0 ? args[0] : "shadow-divergences.txt"));
+        int reproduced = 0;
+        int total = 0;
+        for (String record : records) {
+            if (record.isBlank()) {
+                continue;
+            }
+            total++;
+            String divergence = ShadowValidator.replay(record);
+            if (divergence != null) {
+                reproduced++;
+                System.out.println("DIVERGES " + divergence);
+            } else {
+                System.out.println("fixed    " + record);
+            }
+        }
+        System.out.println(reproduced + " of " + total + " divergences still reproduce");
+        if (reproduced > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.abalone.model.training;
+
+import java.util.List;
+import java.util.Random;
+
+import com.abalone.model.Board;
+import com.abalone.model.search.ProofNumberSearch;
+import com.abalone.model.utils.Move;
+import com.abalone.model.utils.Players.Player;
+
+/**
+ * Checks the proof-number search against an exhaustive AND/OR search on random endgame positions.
+ *
+ * Both sides get 9 or 10 pieces scattered over the board, so one ejection can end the game
+ * either way. A position is a win for the attacker when the defender is down to the target or
+ * to 8 pieces, and a loss as soon as the attacker is down to 8, whatever the target. Every
+ * PROVEN and DISPROVEN result must agree with the exhaustive search, and a proving move must
+ * itself be winning. Exits with status 1 on any mismatch.
+ *
+ * Usage: SolverCheck [positions] [plies] [seed]    (200 positions of 3 plies with seed 1 by default)
+ */
+public class SolverCheck {
+    private static final long NODE_LIMIT = 1_000_000;
+    private static final int TABLE_BITS = 16;
+
+    public static void main(String[] args) {
+        int positions = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int plies = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        Random random = new Random(args.length > 2 ? Long.parseLong(args[2]) : 1);
+        SelfPlay players = new SelfPlay();
+        ProofNumberSearch solver = new ProofNumberSearch(TABLE_BITS);
+        int mismatches = 0;
+        int proven = 0;
+        int unknown = 0;
+        for (int i = 0; i < positions; i++) {
+            Board board = randomEndgame(players, random);
+            Player attacker = random.nextBoolean() ? players.getAIPlayer() : players.getHumanPlayer();
+            Player defender = board.opponentPlayer(attacker);
+            int ejections = 1 + random.nextInt(2);
+            int target = board.getMarbleCount(defender) - ejections;
+            ProofNumberSearch.Result result = solver.solve(board, attacker, ejections, plies, NODE_LIMIT);
+            if (result.getStatus() == ProofNumberSearch.Status.UNKNOWN) {
+                unknown++;
+                continue;
+            }
+            boolean expected = wins(board, attacker, attacker, target, plies);
+            boolean proved = result.getStatus() == ProofNumberSearch.Status.PROVEN;
+            String failure = null;
+            if (proved != expected) {
+                failure = "expected " + (expected ? "PROVEN" : "DISPROVEN");
+            } else if (proved && result.getMove() != null) {
+                Board after = board.clone();
+                after.applyMove(result.getMove());
+                if (!wins(after, attacker, defender, target, plies - 1)) {
+                    failure = "proving move does not win";
+                }
+            }
+            if (proved) {
+                proven++;
+            }
+            if (failure != null) {
+                mismatches++;
+                System.out.printf("MISMATCH ai=%x hu=%x %s ejections %d: %s, %s%n",
+                        board.getOccupancyMask(players.getAIPlayer()), board.getOccupancyMask(players.getHumanPlayer()),
+                        attacker.getName(), ejections, result, failure);
+            }
+        }
+        System.out.printf("%d positions, %d proven, %d unknown, %d mismatches%n", positions, proven, unknown, mismatches);
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Exhaustive AND/OR search. A side without a legal move passes.
+     *
+     * @return true if the attacker can force the defender down to the target within the plies
+     */
+    private static boolean wins(Board board, Player attacker, Player toMove, int target, int plies) {
+        Player defender = board.opponentPlayer(attacker);
+        if (board.getMarbleCount(defender) <= Math.max(target, 8)) {
+            return true;
+        }
+        if (board.getMarbleCount(attacker) <= 8 || plies == 0) {
+            return false;
+        }
+        boolean or = toMove == attacker;
+        List<Move> moves = board.getPossibleMoves(toMove);
+        if (moves.isEmpty()) {
+            return wins(board, attacker, board.opponentPlayer(toMove), target, plies - 1);
+        }
+        for (Move move : moves) {
+            int delta = board.applyMove(move);
+            boolean win = wins(board, attacker, board.opponentPlayer(toMove), target, plies - 1);
+            board.undoMove(delta);
+            if (win == or) {
+                return or;
+            }
+        }
+        return !or;
+    }
+
+    private static Board randomEndgame(SelfPlay players, Random random) {
+        long aiMask = 0;
+        long humanMask = 0;
+        int aiCount = 9 + random.nextInt(2);
+        int humanCount = 9 + random.nextInt(2);
+        while (Long.bitCount(aiMask) < aiCount) {
+            aiMask |= 1L << random.nextInt(61);
+        }
+        while (Long.bitCount(humanMask) < humanCount) {
+            long cell = 1L << random.nextInt(61);
+            if ((aiMask & cell) == 0) {
+                humanMask |= cell;
+            }
+        }
+        Board board = new Board(players.getAIPlayer(), players.getHumanPlayer(), aiMask, humanMask);
+        board.setIncrementalMoves(false);
+        return board;
+    }
+}
@@ -0,0 +1,164 @@
+package com.abalone.model.training;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.abalone.model.Board;
+import com.abalone.model.GameManager;
+import com.abalone.model.SpectatorChannel;
+import com.abalone.model.SpectatorListener;
+import com.abalone.model.utils.Move;
+import com.abalone.model.utils.SpectatorFrame;
+import com.abalone.model.utils.Players.Player;
+
+/**
+ * Local load test for SpectatorChannel: plays random moves, with an occasional take-back, on one
+ * game watched by many spectators, and reports publish and delivery rates, lag and resyncs.
+ * One spectator in SLOW_EVERY polls only every SLOW_PAUSE_MILLIS, so the resync and drop path is
+ * exercised, and one in MIRROR_EVERY keeps its own Board from the frames, which must match the
+ * game at the end.
+ *
+ * Usage:
+ *   SpectatorBench [spectators] [moves] [pollerThreads] [capacityBits]
+ */
+public class SpectatorBench {
+    private static final int SLOW_EVERY = 100;
+    private static final long SLOW_PAUSE_MILLIS = 200;
+    private static final int MIRROR_EVERY = 1000;
+    private static final int UNDO_EVERY = 50;
+    private static final int MAX_RESYNCS = 3;
+    private static final int POLL_BATCH = 64;
+
+    /**
+     * A spectator that counts frames, and optionally replays them on its own board.
+     */
+    private static class Spectator implements SpectatorListener {
+        final SpectatorChannel.Subscription subscription;
+        final boolean slow;
+        final Board mirror;
+        long frames;
+        long nextPoll;
+
+        Spectator(SpectatorChannel.Subscription subscription, boolean slow, boolean mirror, Player ai, Player human) {
+            this.subscription = subscription;
+            this.slow = slow;
+            this.mirror = mirror ? new Board(ai, human, 0, 0) : null;
+        }
+
+        @Override
+        public void onSnapshot(long aiMask, long humanMask, boolean humanTurn) {
+            if (mirror != null) {
+                mirror.setPosition(aiMask, humanMask);
+            }
+        }
+
+        @Override
+        public void onFrame(long frame, long aiMask, long humanMask) {
+            frames++;
+            if (mirror == null) {
+                return;
+            }
+            if (SpectatorFrame.type(frame) == SpectatorFrame.MOVE) {
+                mirror.applyMove(SpectatorFrame.decodeMove(frame));
+            } else if (SpectatorFrame.type(frame) == SpectatorFrame.POSITION) {
+                mirror.setPosition(aiMask, humanMask);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int spectatorCount = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int moves = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        int pollers = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int capacityBits = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        GameManager game = new GameManager();
+        Board board = game.getBoard();
+        SpectatorChannel channel = new SpectatorChannel(game, capacityBits, MAX_RESYNCS);
+        List<Spectator> spectators = new ArrayList<>(spectatorCount);
+        for (int i = 0; i < spectatorCount; i++) {
+            spectators.add(new Spectator(channel.subscribe(), i % SLOW_EVERY == SLOW_EVERY - 1, i % MIRROR_EVERY == 0,
+                    board.getAIPlayer(), board.getHumanPlayer()));
+        }
+
+        AtomicLong delivered = new AtomicLong();
+        AtomicLong maxLag = new AtomicLong();
+        Thread[] threads = new Thread[pollers];
+        AtomicBoolean done = new AtomicBoolean();
+        for (int t = 0; t < pollers; t++) {
+            int first = t;
+            threads[t] = new Thread(() -> {
+                while (true) {
+                    boolean finished = done.get();
+                    long now = System.currentTimeMillis();
+                    long lagged = 0;
+                    for (int i = first; i < spectators.size(); i += pollers) {
+                        Spectator spectator = spectators.get(i);
+                        if (spectator.slow && !finished && now < spectator.nextPoll) {
+                            continue;
+                        }
+                        spectator.nextPoll = now + SLOW_PAUSE_MILLIS;
+                        long lag = spectator.subscription.getLag();
+                        lagged = Math.max(lagged, spectator.slow ? 0 : lag);
+                        int count;
+                        while ((count = spectator.subscription.poll(spectator, POLL_BATCH)) == POLL_BATCH) {
+                            delivered.addAndGet(count);
+                        }
+                        delivered.addAndGet(Math.max(0, count));
+                    }
+                    maxLag.accumulateAndGet(lagged, Math::max);
+                    if (finished) {
+                        return;
+                    }
+                }
+            }, "spectator-poller-" + t);
+            threads[t].start();
+        }
+
+        Random random = new Random(BenchmarkRunner.SEED);
+        long start = System.nanoTime();
+        for (int ply = 0; ply < moves && !game.isGameOver(); ply++) {
+            if (ply % UNDO_EVERY == UNDO_EVERY - 1 && game.canUndo()) {
+                game.undo();
+                continue;
+            }
+            Player toMove = game.isHumanTurn() ? board.getHumanPlayer() : board.getAIPlayer();
+            List<Move> legal = board.getPossibleMoves(toMove);
+            if (legal.isEmpty()) {
+                game.passTurn();
+            } else {
+                game.applyMove(legal.get(random.nextInt(legal.size())));
+            }
+        }
+        long publishNanos = System.nanoTime() - start;
+        done.set(true);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long totalNanos = System.nanoTime() - start;
+
+        int mirrors = 0;
+        int mismatches = 0;
+        int resynced = 0;
+        for (Spectator spectator : spectators) {
+            resynced += spectator.subscription.getResyncCount() > 0 ? 1 : 0;
+            if (spectator.mirror != null && spectator.subscription.getLag() == 0) {
+                mirrors++;
+                if (spectator.mirror.getOccupancyMask(spectator.mirror.getAIPlayer()) != board.getOccupancyMask(board.getAIPlayer())
+                        || spectator.mirror.getOccupancyMask(spectator.mirror.getHumanPlayer()) != board.getOccupancyMask(board.getHumanPlayer())) {
+                    mismatches++;
+                }
+            }
+        }
+        System.out.printf("%d spectators, %d pollers, ring of %d frames%n", spectatorCount, pollers, 1 << capacityBits);
+        System.out.printf("published %d frames in %d ms (%.1f us per move)%n", channel.getPublishedCount(),
+                publishNanos / 1_000_000, publishNanos / 1000.0 / Math.max(1, moves));
+        System.out.printf("delivered %d frames in %d ms (%.0f frames/s), max lag of a fast spectator %d frames%n",
+                delivered.get(), totalNanos / 1_000_000, delivered.get() * 1e9 / totalNanos, maxLag.get());
+        System.out.printf("%d spectators resynced, %d dropped, %d of %d mirrors match the game%n", resynced,
+                spectatorCount - channel.getSubscriberCount(), mirrors - mismatches, mirrors);
+    }
+}
@@ -0,0 +1,138 @@
+package com.abalone.model.training;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.abalone.model.EvaluationWeights;
+import com.abalone.model.StateMachine;
+
+/**
+ * Tunes the StateMachine heuristic weights with SPSA over self-play.
+ * Every iteration perturbs all weights at once in a random direction, plays a match between the
+ * two perturbed weight sets on all cores and moves the weights towards the side that scored better.
+ * Weights are tuned in log space so that large and small weights move by similar ratios.
+ *
+ * Usage: WeightTuner &lt;out&gt; [iterations] [gamesPerIteration] [maxPlies] [start weights file]
+ */
+public class WeightTuner {
+    private static final double PERTURBATION = 0.2;  // c: step used to probe the gradient
+    private static final double LEARNING_RATE = 0.5; // a: step used to follow the gradient
+    private static final double STABILITY = 10;      // A: delays the learning rate decay
+
+    private final ExecutorService pool;
+    private final Random random;
+    private final int gamesPerIteration;
+    private final int maxPlies;
+    private final double[] theta; // log of each weight
+
+    public WeightTuner(EvaluationWeights start, int gamesPerIteration, int maxPlies, int threads, long seed) {
+        this.pool = Executors.newFixedThreadPool(threads);
+        this.random = new Random(seed);
+        this.gamesPerIteration = gamesPerIteration;
+        this.maxPlies = maxPlies;
+        int[] values = start.toArray();
+        theta = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            theta[i] = Math.log(Math.max(1, values[i]));
+        }
+    }
+
+    /**
+     * Runs one SPSA iteration.
+     *
+     * @param k the iteration number, starting at 0
+     * @return the match score of the plus side, between -1 and 1
+     */
+    public double step(int k) throws InterruptedException, ExecutionException {
+        double ck = PERTURBATION / Math.pow(k + 1, 0.101);
+        double ak = LEARNING_RATE / Math.pow(k + 1 + STABILITY, 0.602);
+        int[] delta = new int[theta.length];
+        double[] plus = new double[theta.length];
+        double[] minus = new double[theta.length];
+        for (int i = 0; i < theta.length; i++) {
+            delta[i] = random.nextBoolean() ? 1 : -1;
+            plus[i] = theta[i] + ck * delta[i];
+            minus[i] = theta[i] - ck * delta[i];
+        }
+        double score = playMatch(toWeights(plus), toWeights(minus));
+        for (int i = 0; i < theta.length; i++) {
+            theta[i] += ak * score / (2 * ck * delta[i]);
+        }
+        return score;
+    }
+
+    /**
+     * Plays gamesPerIteration games, alternating colours.
+     * @return (plus wins - minus wins) / games
+     */
+    private double playMatch(EvaluationWeights plus, EvaluationWeights minus) throws InterruptedException, ExecutionException {
+        List<Future<Integer>> games = new ArrayList<>();
+        for (int g = 0; g < gamesPerIteration; g++) {
+            boolean plusIsAI = g % 2 == 0;
+            games.add(pool.submit(() -> {
+                StateMachine plusEngine = new StateMachine(plus);
+                StateMachine minusEngine = new StateMachine(minus);
+                int result = plusIsAI
+                        ? new SelfPlay().playGame(plusEngine, minusEngine, maxPlies, null)
+                        : new SelfPlay().playGame(minusEngine, plusEngine, maxPlies, null);
+                return plusIsAI ? result : -result;
+            }));
+        }
+        int total = 0;
+        for (Future<Integer> game : games) {
+            total += game.get();
+        }
+        return (double) total / gamesPerIteration;
+    }
+
+    /**
+     * @return the current weights
+     */
+    public EvaluationWeights getWeights() {
+        return toWeights(theta);
+    }
+
+    private static EvaluationWeights toWeights(double[] logs) {
+        int[] values = new int[logs.length];
+        for (int i = 0; i < logs.length; i++) {
+            values[i] = (int) Math.max(1, Math.round(Math.exp(logs[i])));
+        }
+        return new EvaluationWeights(values);
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        if (args.length < 1) {
+            System.err.println("Usage: WeightTuner <out> [iterations] [gamesPerIteration] [maxPlies] [start weights file]");
+            return;
+        }
+        Path out = Paths.get(args[0]);
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int games = args.length > 2 ? Integer.parseInt(args[2]) : 2 * Runtime.getRuntime().availableProcessors();
+        int maxPlies = args.length > 3 ? Integer.parseInt(args[3]) : 150;
+        EvaluationWeights start = args.length > 4 ? EvaluationWeights.load(Paths.get(args[4])) : EvaluationWeights.defaults();
+
+        WeightTuner tuner = new WeightTuner(start, games, maxPlies, Runtime.getRuntime().availableProcessors(), System.nanoTime());
+        try {
+            for (int k = 0; k < iterations; k++) {
+                double score = tuner.step(k);
+                System.out.printf("Iteration %d: match score %+.2f, %s%n", k, score, tuner.getWeights());
+                // Save after every iteration so a long run can be stopped at any time.
+                tuner.getWeights().save(out, "SPSA tuned after " + (k + 1) + " iterations");
+            }
+        } finally {
+            tuner.shutdown();
+        }
+    }
+}
@@ -1,12 +1,31 @@
 package com.abalone.model.utils;
 
+/**
+ * A move of a group of up to three pieces one cell in a direction.
+ *
+ * In-line moves name the rear piece of the group (from) and the neighbor of that piece in the
+ * direction of the move (to); the group is the line of own pieces that starts at from.
+ * Broadside moves also name the piece at the other end of the group (groupEnd); every piece of
+ * the group from..groupEnd then steps sideways in the direction from -> to.
+ */
 public class Move {
     private int from;
     private int to;
+    private int groupEnd;
 
     public Move(int from, int to) {
+        this(from, to, -1);
+    }
+
+    /**
+     * @param from the rear piece of an in-line group, or one end of a broadside group
+     * @param to the neighbor of from in the direction of the move
+     * @param groupEnd the other end of a broadside group, or -1 for an in-line move
+     */
+    public Move(int from, int to, int groupEnd) {
         this.from = from;
         this.to = to;
+        this.groupEnd = groupEnd;
     }
 
     public int getFrom() {
@@ -17,8 +36,76 @@ public class Move {
         return to;
     }
 
+    /**
+     * @return the other end of a broadside group, or -1 for an in-line move
+     */
+    public int getGroupEnd() {
+        return groupEnd;
+    }
+
+    public boolean isBroadside() {
+        return groupEnd != -1;
+    }
+
+    /**
+     * Packs the move into 18 bits: from in bits 0-5, to in bits 6-11, groupEnd + 1 in bits 12-17.
+     *
+     * @return the packed move
+     */
+    public int encode() {
+        return from | to << 6 | (groupEnd + 1) << 12;
+    }
+
+    /**
+     * @param code a move packed by encode()
+     * @return the move
+     */
+    public static Move decode(int code) {
+        return new Move(code & 0x3F, (code >>> 6) & 0x3F, ((code >>> 12) & 0x3F) - 1);
+    }
+
+    /**
+     * Parses the notation written by toNotation(): "from-to" or "from-to-groupEnd".
+     *
+     * @param notation the move text
+     * @return the move
+     * @throws NumberFormatException if the text is not a move
+     */
+    public static Move parse(String notation) {
+        String[] cells = notation.split("-");
+        if (cells.length < 2 || cells.length > 3) {
+            throw new NumberFormatException("Not a move: " + notation);
+        }
+        return new Move(Integer.parseInt(cells[0]), Integer.parseInt(cells[1]),
+                cells.length == 3 ? Integer.parseInt(cells[2]) : -1);
+    }
+
+    /**
+     * @return "from-to" for in-line moves, "from-to-groupEnd" for broadside moves
+     */
+    public String toNotation() {
+        return groupEnd == -1 ? from + "-" + to : from + "-" + to + "-" + groupEnd;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Move)) {
+            return false;
+        }
+        Move move = (Move) other;
+        return from == move.from && to == move.to && groupEnd == move.groupEnd;
+    }
+
+    @Override
+    public int hashCode() {
+        return encode();
+    }
+
     @Override
     public String toString() {
+        if (groupEnd != -1) {
+            return "Move from " + from + " to " + to + " with group end " + groupEnd;
+        }
         return "Move from " + from + " to " + to;
     }
 }
@@ -0,0 +1,61 @@
+package com.abalone.model.utils;
+
+/**
+ * Packs the change made by one applied move into a single int, so that the move can be
+ * undone or replayed without a board snapshot.
+ *
+ * Layout: bits 0-5 the rear cell of the moving group, bits 6-8 the direction index,
+ * bits 9-12 the moving group size, bits 13-16 the pushed group size, bit 17 set when the
+ * last pushed piece left the board. Broadside moves set bit 18 and keep the direction from the
+ * first cell of the group towards its other end in bits 19-21; their pushed size is 0.
+ */
+public final class MoveDelta {
+    /** Delta recorded when a player passes because it has no legal move. */
+    public static final int PASS = -1;
+
+    private MoveDelta() {
+    }
+
+    public static int encode(int from, int direction, int moverCount, int pushedCount, boolean ejected) {
+        return from | direction << 6 | moverCount << 9 | pushedCount << 13 | (ejected ? 1 << 17 : 0);
+    }
+
+    /**
+     * @param from the first cell of the group
+     * @param direction the direction index of the move
+     * @param axis the direction index from the first cell of the group towards its other end
+     * @param moverCount the group size
+     * @return the delta of a broadside move
+     */
+    public static int encodeBroadside(int from, int direction, int axis, int moverCount) {
+        return from | direction << 6 | moverCount << 9 | 1 << 18 | axis << 19;
+    }
+
+    public static boolean broadside(int delta) {
+        return (delta & (1 << 18)) != 0;
+    }
+
+    public static int axis(int delta) {
+        return (delta >>> 19) & 0x7;
+    }
+
+    public static int from(int delta) {
+        return delta & 0x3F;
+    }
+
+    public static int direction(int delta) {
+        return (delta >>> 6) & 0x7;
+    }
+
+    public static int moverCount(int delta) {
+        return (delta >>> 9) & 0xF;
+    }
+
+    public static int pushedCount(int delta) {
+        return (delta >>> 13) & 0xF;
+    }
+
+    public static boolean ejected(int delta) {
+        return (delta & (1 << 17)) != 0;
+    }
+}
@@ -1,19 +1,203 @@
 package com.abalone.model.utils.Players;
 
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.abalone.model.AnalysisCache;
 import com.abalone.model.Board;
+import com.abalone.model.BoardSymmetry;
+import com.abalone.model.OpeningBook;
 import com.abalone.model.StateMachine;
+import com.abalone.model.metrics.MoveMetrics;
+import com.abalone.model.metrics.SearchMetrics;
+import com.abalone.model.search.AnalysisResult;
+import com.abalone.model.search.ProofNumberSearch;
+import com.abalone.model.search.Search;
+import com.abalone.model.search.TimeManager;
 import com.abalone.model.utils.Move;
 
 public class AIPlayer extends Player {
+    // The endgame solver looks for a forced win once the opponent is this many ejections from losing.
+    private static final int ENDGAME_EJECTIONS = 2;
+    private static final int ENDGAME_PLIES = 5;
+    private static final long ENDGAME_NODES = 200_000;
+    private static final int ENDGAME_TABLE_BITS = 18;
+    // With a game clock, the endgame solver may use this share of the move's hard limit.
+    private static final double ENDGAME_TIME_SHARE = 0.25;
+    // With a game clock, cached results must come from at least this deep a search.
+    private static final int TIMED_CACHE_DEPTH = 4;
+    private static final ExecutorService SOLVER_POOL = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "abalone-solver");
+                thread.setDaemon(true);
+                return thread;
+            });
+
     private StateMachine stateMachine;
+    private final OpeningBook openingBook;
+    private final AnalysisCache analysisCache;
+    private final TimeManager timeManager; // null unless a game clock is configured
+    private int movesPlayed;
+    private int lastScore;
+    private int lastDepth;
+    private MoveMetrics lastSearchMetrics; // metrics of the last timed Search
 
     public AIPlayer(String name) {
         super(name);
         stateMachine = new StateMachine();
+        openingBook = OpeningBook.configured();
+        analysisCache = AnalysisCache.configured();
+        timeManager = TimeManager.configured();
     }
 
+    /**
+     * Plays the opening book move if the position is in the book, then a forced win if the
+     * endgame solver proves one, then the cached result if the position was analysed before,
+     * and otherwise thinks (see think) and caches its answer. With a game clock, all of this
+     * runs inside the move's limits and is charged to the clock.
+     *
+     * @param board the current board
+     * @return the chosen Move, or null if no moves are available
+     */
     public Move generateAIMove(Board board) {
-        return stateMachine.determineAIMove(board, this);
+        movesPlayed++;
+        if (timeManager == null) {
+            return chooseMove(board);
+        }
+        timeManager.startMove(movesPlayed - 1, board.getMarbleCount(this), board.getMarbleCount(board.opponentPlayer(this)));
+        try {
+            return chooseMove(board);
+        } finally {
+            timeManager.endMove();
+        }
+    }
+
+    private Move chooseMove(Board board) {
+        if (openingBook != null) {
+            Move bookMove = openingBook.lookup(board, this);
+            if (bookMove != null) {
+                return bookMove;
+            }
+        }
+        Move winningMove = findForcedWin(board);
+        if (winningMove != null) {
+            return winningMove;
+        }
+        if (analysisCache == null) {
+            return think(board);
+        }
+
+        long key = board.getCanonicalKey(this);
+        int transform = board.getCanonicalTransform(this);
+        AnalysisCache.Entry entry = analysisCache.lookup(key);
+        if (entry != null && entry.getDepth() >= (timeManager == null ? stateMachine.getSearchDepth() : TIMED_CACHE_DEPTH)) {
+            int inverse = BoardSymmetry.inverse(transform);
+            Move cached = BoardSymmetry.transformMove(inverse, new Move(entry.getFrom(), entry.getTo(), entry.getGroupEnd()));
+            Player owner = board.getPlayerAt(cached.getFrom());
+            // Guards against key collisions.
+            if (owner != null && owner.getName().equals(getName()) && board.isValidMove(cached)) {
+                if (SearchMetrics.ENABLED) SearchMetrics.countCacheLookup(true);
+                return cached;
+            }
+        }
+        if (SearchMetrics.ENABLED) SearchMetrics.countCacheLookup(false);
+
+        Move move = think(board);
+        if (move != null) {
+            Move canonical = BoardSymmetry.transformMove(transform, move);
+            analysisCache.store(key, lastScore, lastDepth, canonical.getFrom(), canonical.getTo(), canonical.getGroupEnd());
+        }
+        return move;
+    }
+
+    /**
+     * Asks the StateMachine, or with a game clock runs an iterative deepening Search in what is
+     * left of the limits of the TimeManager. Sets lastScore and lastDepth.
+     *
+     * @param board the current board
+     * @return the chosen Move, or null if no moves are available
+     */
+    private Move think(Board board) {
+        if (timeManager == null) {
+            Move move = stateMachine.determineAIMove(board, this);
+            lastScore = stateMachine.getLastBestScore();
+            lastDepth = stateMachine.getSearchDepth();
+            return move;
+        }
+        Search search = new Search();
+        AnalysisResult result = search.analyze(board, this, 1, Search.MAX_PLY, timeManager.getHardLimitLeftMillis(), iteration -> {
+            if (timeManager.onIteration(iteration)) {
+                search.stop();
+            }
+        });
+        lastSearchMetrics = search.getLastMetrics();
+        Move move = result.getBestMove();
+        if (move == null) {
+            // Not even the first iteration finished inside the hard limit.
+            List<Move> moves = board.getPossibleMoves(this);
+            move = moves.isEmpty() ? null : moves.get(0);
+        }
+        lastScore = result.getBestScore();
+        lastDepth = Math.max(1, result.getDepth());
+        return move;
+    }
+
+    /**
+     * Runs the proof-number solver when the opponent is close to losing.
+     *
+     * @param board the current board
+     * @return the first move of a proven forced win, or null
+     */
+    private Move findForcedWin(Board board) {
+        int needed = board.getMarbleCount(board.opponentPlayer(this)) - 8;
+        if (needed > ENDGAME_EJECTIONS) {
+            return null;
+        }
+        long deadline = timeManager == null ? Long.MAX_VALUE
+                : System.nanoTime() + (long) (timeManager.getHardLimitLeftMillis() * ENDGAME_TIME_SHARE * 1_000_000);
+        try {
+            ProofNumberSearch.Result result = ProofNumberSearch.solveParallel(board, this, needed, ENDGAME_PLIES,
+                    ENDGAME_NODES, SOLVER_POOL, ENDGAME_TABLE_BITS, deadline);
+            return result.getStatus() == ProofNumberSearch.Status.PROVEN ? result.getMove() : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * @return the number of moves generated so far
+     */
+    public int getMovesPlayed() {
+        return movesPlayed;
+    }
+
+    /**
+     * @return the time left on the game clock, or -1 if no clock is configured
+     */
+    public long getRemainingMillis() {
+        return timeManager == null ? -1 : timeManager.getRemainingMillis();
+    }
+
+    /**
+     * Continues a game played by another AIPlayer with the same clock settings.
+     *
+     * @param movesPlayed the moves that player generated
+     * @param remainingMillis the time left on its clock, ignored without a clock
+     */
+    public void restoreClock(int movesPlayed, long remainingMillis) {
+        this.movesPlayed = movesPlayed;
+        if (timeManager != null && remainingMillis >= 0) {
+            timeManager.setRemainingMillis(remainingMillis);
+        }
+    }
+
+    /**
+     * @return the search counters of the last generated move, or null when metrics are disabled
+     */
+    public MoveMetrics getLastMoveMetrics() {
+        return timeManager == null ? stateMachine.getLastMoveMetrics() : lastSearchMetrics;
     }
 
 }
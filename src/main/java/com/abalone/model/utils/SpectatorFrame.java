@@ -0,0 +1,71 @@
+package com.abalone.model.utils;
+
+/**
+ * Packs one game event for spectators into a single long, so that it is encoded once and the
+ * same frame is read by every spectator.
+ *
+ * Layout: bits 0-17 the packed Move (Move.encode), bit 18 set when the AI made the move,
+ * bit 19 set when it is the human's turn (POSITION) or the human won (GAME_OVER), bits 56-63
+ * the frame type. A POSITION frame is followed by two frames holding the AI and the human
+ * occupancy masks.
+ */
+public final class SpectatorFrame {
+    /** A move was applied; the turn passes to the other player. */
+    public static final int MOVE = 1;
+    /** The player to move passed. */
+    public static final int PASS = 2;
+    /** The board was moved through the history; the next two frames hold the position. */
+    public static final int POSITION = 3;
+    /** The game ended. */
+    public static final int GAME_OVER = 4;
+
+    private static final long BY_AI = 1L << 18;
+    private static final long HUMAN = 1L << 19;
+
+    private SpectatorFrame() {
+    }
+
+    public static long move(Move move, boolean byAI) {
+        return (long) MOVE << 56 | move.encode() | (byAI ? BY_AI : 0);
+    }
+
+    public static long pass() {
+        return (long) PASS << 56;
+    }
+
+    /**
+     * @param humanTurn true if it is the human's turn in the new position
+     * @return the header frame; the AI and the human masks follow it
+     */
+    public static long position(boolean humanTurn) {
+        return (long) POSITION << 56 | (humanTurn ? HUMAN : 0);
+    }
+
+    public static long gameOver(boolean humanWon) {
+        return (long) GAME_OVER << 56 | (humanWon ? HUMAN : 0);
+    }
+
+    public static int type(long frame) {
+        return (int) (frame >>> 56);
+    }
+
+    /**
+     * @param frame a MOVE frame
+     * @return the applied move
+     */
+    public static Move decodeMove(long frame) {
+        return Move.decode((int) (frame & 0x3FFFF));
+    }
+
+    public static boolean byAI(long frame) {
+        return (frame & BY_AI) != 0;
+    }
+
+    /**
+     * @param frame a POSITION or GAME_OVER frame
+     * @return true if it is the human's turn, or if the human won
+     */
+    public static boolean human(long frame) {
+        return (frame & HUMAN) != 0;
+    }
+}
@@ -0,0 +1,145 @@
+package com.abalone.model.utils;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous trace facility backed by a preallocated ring buffer.
+ *
+ * Engine and UI threads record events with log(), which checks the level, claims a slot with a
+ * single CAS and stores the event as primitives. It never blocks and never allocates: when the
+ * buffer is full the event is dropped and counted. A daemon thread drains the buffer, formats the
+ * messages and writes them to stdout or to the file named by -Dabalone.trace.file.
+ *
+ * The minimum level is set with -Dabalone.trace=DEBUG|INFO|WARN|OFF (INFO by default).
+ */
+public final class Trace {
+    public enum Level { DEBUG, INFO, WARN, OFF }
+
+    private static final int CAPACITY = 1 << 12;
+    private static final int MASK = CAPACITY - 1;
+    private static final long DRAIN_PAUSE_NANOS = 10_000_000L;
+
+    private static final Level LEVEL = Level.valueOf(System.getProperty("abalone.trace", "INFO").toUpperCase());
+
+    private static final long[] times = new long[CAPACITY];
+    private static final int[] events = new int[CAPACITY];
+    private static final int[] firstArgs = new int[CAPACITY];
+    private static final int[] secondArgs = new int[CAPACITY];
+    // Slot i is readable once published[i] == sequence + 1 for the sequence that claimed it.
+    private static final AtomicLongArray published = new AtomicLongArray(CAPACITY);
+    private static final AtomicLong head = new AtomicLong();
+    private static final AtomicLong dropped = new AtomicLong();
+    private static volatile long tail;
+
+    private static final TraceEvent[] EVENTS = TraceEvent.values();
+    private static final PrintStream out = openOutput();
+
+    static {
+        if (LEVEL != Level.OFF) {
+            Thread drainer = new Thread(Trace::drainLoop, "abalone-trace");
+            drainer.setDaemon(true);
+            drainer.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(Trace::drain));
+        }
+    }
+
+    private Trace() {
+    }
+
+    /**
+     * @param event the event to check
+     * @return true if the event would be recorded at the current level
+     */
+    public static boolean isEnabled(TraceEvent event) {
+        return event.getLevel().compareTo(LEVEL) >= 0;
+    }
+
+    public static void log(TraceEvent event) {
+        log(event, 0, 0);
+    }
+
+    public static void log(TraceEvent event, int a) {
+        log(event, a, 0);
+    }
+
+    /**
+     * Records an event with two arguments.
+     *
+     * @param event the event
+     * @param a the first argument
+     * @param b the second argument
+     */
+    public static void log(TraceEvent event, int a, int b) {
+        if (event.getLevel().compareTo(LEVEL) < 0) {
+            return;
+        }
+        long sequence;
+        do {
+            sequence = head.get();
+            if (sequence - tail >= CAPACITY) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!head.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int) (sequence & MASK);
+        times[slot] = System.currentTimeMillis();
+        events[slot] = event.ordinal();
+        firstArgs[slot] = a;
+        secondArgs[slot] = b;
+        published.lazySet(slot, sequence + 1);
+    }
+
+    /**
+     * @return the number of events dropped because the buffer was full
+     */
+    public static long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Writes every published event to the output. Called by the draining thread and at shutdown.
+     */
+    public static synchronized void drain() {
+        long next = tail;
+        while (true) {
+            int slot = (int) (next & MASK);
+            if (published.get(slot) != next + 1) {
+                break;
+            }
+            TraceEvent event = EVENTS[events[slot]];
+            out.println(Instant.ofEpochMilli(times[slot]) + " " + event.getLevel() + " "
+                    + event.format(firstArgs[slot], secondArgs[slot]));
+            next++;
+            tail = next;
+        }
+        out.flush();
+    }
+
+    private static void drainLoop() {
+        while (true) {
+            drain();
+            LockSupport.parkNanos(DRAIN_PAUSE_NANOS);
+        }
+    }
+
+    private static PrintStream openOutput() {
+        String file = System.getProperty("abalone.trace.file");
+        if (file == null) {
+            return System.out;
+        }
+        try {
+            return new PrintStream(Files.newOutputStream(Paths.get(file)), false, "UTF-8");
+        } catch (IOException e) {
+            System.err.println("Cannot open trace file " + file + ", tracing to stdout");
+            return System.out;
+        }
+    }
+}
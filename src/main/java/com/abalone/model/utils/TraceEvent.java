@@ -0,0 +1,51 @@
+package com.abalone.model.utils;
+
+/**
+ * Structured trace events. Each event has a fixed level and a message pattern taking up to two
+ * int arguments, so recording an event never builds a string on the calling thread.
+ */
+public enum TraceEvent {
+    BEST_MOVE_SCORE(Trace.Level.INFO, "Best move score: %d"),
+    PREVENTED_WINNING_MOVES(Trace.Level.DEBUG, "Prevented %d opponent winning moves"),
+    AI_MOVE(Trace.Level.INFO, "AI moves: Move from %d to %d"),
+    CLICKED_POSITION(Trace.Level.DEBUG, "Clicked position: %d"),
+    SELECTED_PIECE(Trace.Level.DEBUG, "Selected piece at: %d"),
+    SELECTED_GROUP_END(Trace.Level.DEBUG, "Selected group end at: %d"),
+    SELECTION_FAILED(Trace.Level.DEBUG, "Selection failed! Not a human piece."),
+    HIGHLIGHTED_PIECE(Trace.Level.DEBUG, "Highlighted piece at: %d"),
+    VALID_MOVE(Trace.Level.INFO, "Valid move from %d to %d"),
+    INVALID_MOVE(Trace.Level.INFO, "Invalid move from %d to %d"),
+    SHADOW_DIVERGENCE(Trace.Level.WARN, "Shadow validation divergence #%d in check %d"),
+    WARMUP_DONE(Trace.Level.INFO, "Warm-up done after %d rounds in %d ms"),
+    CACHE_WRITE_FAILED(Trace.Level.WARN, "Analysis cache write failed, depth %d result not stored"),
+    CACHE_COMPACT_FAILED(Trace.Level.WARN, "Analysis cache compaction failed with %d live entries"),
+    CACHE_OPEN_FAILED(Trace.Level.WARN, "Cannot open the analysis cache named by -Dabalone.cache, playing without it"),
+    CACHE_WARM_FAILED(Trace.Level.WARN, "Cannot read the analysis cache log, lookups miss until restart"),
+    BOOK_OPEN_FAILED(Trace.Level.WARN, "Cannot open the opening book named by -Dabalone.book, playing without it"),
+    NNUE_LOAD_FAILED(Trace.Level.WARN, "Cannot load the NNUE weights named by -Dabalone.nnue, using the heuristic evaluator"),
+    CLOCK_INVALID(Trace.Level.WARN, "Cannot read -Dabalone.clock, playing without a clock"),
+    SHADOW_WRITE_FAILED(Trace.Level.WARN, "Cannot write shadow divergence #%d to the divergence file");
+
+    private final Trace.Level level;
+    private final String pattern;
+
+    TraceEvent(Trace.Level level, String pattern) {
+        this.level = level;
+        this.pattern = pattern;
+    }
+
+    public Trace.Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Formats the event message. Only called on the draining thread.
+     *
+     * @param a the first argument
+     * @param b the second argument
+     * @return the formatted message
+     */
+    String format(int a, int b) {
+        return String.format(pattern, a, b);
+    }
+}
@@ -1,20 +1,25 @@
 package com.abalone.view;
 
 import com.abalone.controller.GameController;
-import com.abalone.model.Board;
+import com.abalone.model.Position;
+import com.abalone.model.utils.Trace;
+import com.abalone.model.utils.TraceEvent;
 
+import javafx.animation.FillTransition;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.input.MouseButton;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 
 public class GameView {
@@ -27,12 +32,24 @@ public class GameView {
     private final HBox bottomPanel;
     private final Button restartButton;
     private final Button instructionsButton;
+    private final Button undoButton;
+    private final Button hintButton;
 
     private final HBox topPanel;
     private final Label turnLabel;
     private final Label humanScoreLabel;
     private final Label aiScoreLabel;
 
+    private static final Duration MOVE_ANIMATION = Duration.millis(150);
+    private final Circle[] cells = new Circle[61];          // board cell index -> node
+    private final Color[] shownColors = new Color[61];      // colour currently displayed per cell
+    private final FillTransition[] transitions = new FillTransition[61];
+    private int highlightedPosition = -1;
+    private int highlightedGroupEnd = -1;
+    private int hintFrom = -1;
+    private int hintTo = -1;
+    private int hintGroupEnd = -1;
+
     /**
      * Initializes the GameView, sets up the top panel with turn and score labels,
      * the center board, and the bottom panel with control buttons.
@@ -61,7 +78,11 @@ public class GameView {
         restartButton.setOnAction(e -> controller.startNewGame());
         instructionsButton = new Button("Instructions");
         instructionsButton.setOnAction(e -> showInstructions());
-        bottomPanel = new HBox(20, restartButton, instructionsButton);
+        undoButton = new Button("Undo");
+        undoButton.setOnAction(e -> controller.undoMove());
+        hintButton = new Button("Hint");
+        hintButton.setOnAction(e -> controller.requestHint());
+        bottomPanel = new HBox(20, restartButton, undoButton, hintButton, instructionsButton);
         bottomPanel.setAlignment(Pos.CENTER);
         bottomPanel.setPadding(new Insets(10));
 
@@ -71,6 +92,7 @@ public class GameView {
         root.setCenter(boardGrid);
         root.setBottom(bottomPanel);
         root.setStyle("-fx-background-color: #333330;");
+        buildBoardCells();
 
         
         Scene scene = new Scene(root, 800, 800);
@@ -87,11 +109,9 @@ public class GameView {
     }
 
     /**
-     * Renders the game board with provided Board.
-     * @param board the current game board state
+     * Builds the 61 board cells once. Later renders only update the cells that changed.
      */
-    public void renderBoard(Board board) {
-        boardGrid.getChildren().clear();
+    private void buildBoardCells() {
         double hexSize = 30; // board size 
         double xOffset = hexSize * Math.sqrt(3);
         double yOffset = hexSize * 1.5; 
@@ -117,47 +137,136 @@ public class GameView {
                 double yPos = centerY + row * yOffset;
                 Circle piece = new Circle(hexSize / 2);
                 piece.setUserData(position);
-                piece.setFill(board.getPieceColor(position));
+                piece.setFill(Color.GRAY);
+                piece.setStroke(Color.TRANSPARENT);
+                piece.setStrokeWidth(3);
                 piece.setOnMouseClicked(event -> {
-                    if (controller.isHumanTurn()) {
+                    if (!controller.isHumanTurn()) {
+                        return;
+                    }
+                    if (event.getButton() == MouseButton.SECONDARY) {
+                        controller.selectGroupEnd(position);
+                    } else {
                         controller.clickedBoardCell(position);
                     }
                 });
                 piece.setLayoutX(xPos);
                 piece.setLayoutY(yPos);
+                cells[position] = piece;
+                shownColors[position] = Color.GRAY;
+                transitions[position] = new FillTransition(MOVE_ANIMATION, piece);
                 boardGrid.getChildren().add(piece);
             }
         }
     }
 
     /**
-     * Clears highlighting on all pieces.
+     * Renders the game board with provided Position.
+     * Only cells whose colour differs from what is shown are updated, and they fade to the new
+     * colour so marbles appear to slide without creating any nodes.
+     * O(n) where n is the number of cells.
+     *
+     * @param board the current game position
      */
-    public void clearHighlight() {
-        for (javafx.scene.Node node : boardGrid.getChildren()) {
-            if (node instanceof Circle) {
-                Circle piece = (Circle) node;
-                piece.setStroke(Color.TRANSPARENT);
+    public void renderBoard(Position board) {
+        for (int position = 0; position < cells.length; position++) {
+            Color color = board.isAI(position) ? Color.WHITE : board.isHuman(position) ? Color.BLACK : Color.GRAY;
+            if (!color.equals(shownColors[position])) {
+                FillTransition transition = transitions[position];
+                transition.stop();
+                transition.setFromValue(shownColors[position]);
+                transition.setToValue(color);
+                transition.playFromStart();
+                shownColors[position] = color;
             }
         }
     }
 
+    /**
+     * Clears highlighting on the highlighted piece.
+     */
+    public void clearHighlight() {
+        int position = highlightedPosition;
+        int groupEnd = highlightedGroupEnd;
+        highlightedPosition = -1;
+        highlightedGroupEnd = -1;
+        restoreStroke(position);
+        restoreStroke(groupEnd);
+    }
+
     /**
      * Highlights the piece at the provided board position.
      * @param position the board cell index to be highlighted
      */
     public void highlightPiece(int position) {
-        for (javafx.scene.Node node : boardGrid.getChildren()) {
-            if (node instanceof Circle) {
-                Circle piece = (Circle) node;
-                if ((int) piece.getUserData() == position) {
-                    System.out.println("Highlighted piece at: " + position);
-                    piece.setStroke(Color.RED);
-                    piece.setStrokeWidth(3);
-                    return;
-                }
-            }
+        clearHighlight();
+        Trace.log(TraceEvent.HIGHLIGHTED_PIECE, position);
+        highlightedPosition = position;
+        restoreStroke(position);
+    }
+
+    /**
+     * Highlights the other end of the selected group for a broadside move.
+     * @param position the board cell index of the group end
+     */
+    public void highlightGroupEnd(int position) {
+        int previous = highlightedGroupEnd;
+        highlightedGroupEnd = position;
+        restoreStroke(previous);
+        restoreStroke(position);
+    }
+
+    /**
+     * Marks the suggested move, replacing any previous hint.
+     * @param from the cell of the piece to move
+     * @param to the cell to move it towards
+     * @param groupEnd the other end of a broadside group, or -1
+     */
+    public void showHint(int from, int to, int groupEnd) {
+        clearHint();
+        hintFrom = from;
+        hintTo = to;
+        hintGroupEnd = groupEnd;
+        restoreStroke(from);
+        restoreStroke(to);
+        restoreStroke(groupEnd);
+    }
+
+    /**
+     * Removes the hint marks.
+     */
+    public void clearHint() {
+        if (hintFrom != -1) {
+            int from = hintFrom;
+            int to = hintTo;
+            int groupEnd = hintGroupEnd;
+            hintFrom = -1;
+            hintTo = -1;
+            hintGroupEnd = -1;
+            restoreStroke(from);
+            restoreStroke(to);
+            restoreStroke(groupEnd);
+        }
+    }
+
+    /**
+     * Draws the stroke a cell should show now. The selection marks (red piece, orange group end)
+     * take precedence over the gold hint marks, so either can be cleared without erasing the other.
+     * @param position the board cell index, or -1 to do nothing
+     */
+    private void restoreStroke(int position) {
+        if (position == -1) {
+            return;
+        }
+        Color stroke = Color.TRANSPARENT;
+        if (position == highlightedPosition) {
+            stroke = Color.RED;
+        } else if (position == highlightedGroupEnd) {
+            stroke = Color.ORANGE;
+        } else if (position == hintFrom || position == hintTo || position == hintGroupEnd) {
+            stroke = Color.GOLD;
         }
+        cells[position].setStroke(stroke);
     }
 
     /**
@@ -199,9 +308,12 @@ public class GameView {
         alert.setHeaderText("How to Play Abalone");
         alert.setContentText(
             "The aim of the game is to eject six of the opponent's marbles from the board.\n"
-            + "You can move up to eight marbles of your color,\n"
-            + "which must be connected in a straight line,\n"
-            + "if the destination fields are free or occupied by a minor number of opponent's marbles."
+            + "You can move up to three marbles of your color, which must be connected in a straight line.\n"
+            + "In line: click the rear marble, then the cell in front of it. The line moves one cell forward\n"
+            + "if the field ahead is free, or pushes a smaller line of opponent's marbles that has a free field\n"
+            + "or the edge behind it.\n"
+            + "Broadside: click a marble, right-click the other end of the line, then click the neighbor\n"
+            + "of the first marble in the direction to move. All destination fields must be free."
         );
         alert.showAndWait();
     }
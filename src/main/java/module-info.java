@@ -2,9 +2,12 @@ module com.abalone {
     requires javafx.controls;
     requires javafx.fxml;
     requires javafx.graphics;
+    requires java.management;
+    requires jdk.jfr;
 
     opens com.abalone to javafx.fxml;
 
 
     exports com.abalone;
+    exports com.abalone.model.metrics;
 }